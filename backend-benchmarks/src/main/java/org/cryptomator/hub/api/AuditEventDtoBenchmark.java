@@ -0,0 +1,109 @@
+package org.cryptomator.hub.api;
+
+import org.cryptomator.hub.entities.events.AuditEvent;
+import org.cryptomator.hub.entities.events.DeviceRegisteredEvent;
+import org.cryptomator.hub.entities.events.DeviceRemovedEvent;
+import org.cryptomator.hub.entities.events.SettingWotUpdateEvent;
+import org.cryptomator.hub.entities.events.SignedWotIdEvent;
+import org.cryptomator.hub.entities.events.UserAccountResetEvent;
+import org.cryptomator.hub.entities.events.UserKeysChangeEvent;
+import org.cryptomator.hub.entities.events.UserSetupCodeChangeEvent;
+import org.cryptomator.hub.entities.events.VaultAccessGrantedEvent;
+import org.cryptomator.hub.entities.events.VaultCreatedEvent;
+import org.cryptomator.hub.entities.events.VaultKeyRetrievedEvent;
+import org.cryptomator.hub.entities.events.VaultMemberAddedEvent;
+import org.cryptomator.hub.entities.events.VaultMemberRemovedEvent;
+import org.cryptomator.hub.entities.events.VaultMemberUpdatedEvent;
+import org.cryptomator.hub.entities.events.VaultOwnershipClaimedEvent;
+import org.cryptomator.hub.entities.events.VaultUpdatedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the type dispatch in {@link AuditLogResource.AuditEventDto#fromEntity(AuditEvent)} for a page of audit events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditEventDtoBenchmark {
+
+	private static final List<Supplier<AuditEvent>> FACTORIES = List.of( //
+			DeviceRegisteredEvent::new, //
+			DeviceRemovedEvent::new, //
+			SettingWotUpdateEvent::new, //
+			SignedWotIdEvent::new, //
+			UserAccountResetEvent::new, //
+			UserKeysChangeEvent::new, //
+			UserSetupCodeChangeEvent::new, //
+			VaultCreatedEvent::new, //
+			VaultUpdatedEvent::new, //
+			VaultAccessGrantedEvent::new, //
+			VaultKeyRetrievedEvent::new, //
+			VaultMemberAddedEvent::new, //
+			VaultMemberRemovedEvent::new, //
+			VaultMemberUpdatedEvent::new, //
+			VaultOwnershipClaimedEvent::new //
+	);
+
+	@Param({"20", "1000"})
+	int pageSize;
+
+	private List<AuditEvent> mixedEvents;
+	private List<AuditEvent> unlockEvents;
+
+	@Setup
+	public void setup() {
+		mixedEvents = new ArrayList<>(pageSize);
+		unlockEvents = new ArrayList<>(pageSize);
+		for (int i = 0; i < pageSize; i++) {
+			mixedEvents.add(init(FACTORIES.get(i % FACTORIES.size()).get(), i));
+			var unlockEvent = new VaultKeyRetrievedEvent();
+			unlockEvent.setRetrievedBy("user" + i);
+			unlockEvent.setVaultId(UUID.randomUUID());
+			unlockEvent.setResult(VaultKeyRetrievedEvent.Result.SUCCESS);
+			unlockEvent.setIpAddress("127.0.0.1");
+			unlockEvent.setDeviceId("device" + i);
+			unlockEvents.add(init(unlockEvent, i));
+		}
+	}
+
+	private static AuditEvent init(AuditEvent event, long id) {
+		event.setId(id);
+		event.setTimestamp(Instant.EPOCH.plusSeconds(id));
+		return event;
+	}
+
+	@Benchmark
+	public void mixedTypes(Blackhole bh) {
+		for (var event : mixedEvents) {
+			bh.consume(AuditLogResource.AuditEventDto.fromEntity(event));
+		}
+	}
+
+	@Benchmark
+	public void unlockEventsOnly(Blackhole bh) {
+		for (var event : unlockEvents) {
+			bh.consume(AuditLogResource.AuditEventDto.fromEntity(event));
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.cryptomator.hub.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.cryptomator.hub.entities.Device;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization of the list responses returned by e.g. {@code GET /vaults} and {@code GET /users}.
+ * <p>
+ * The mapper is configured like the one provided by Quarkus, i.e. dates are written as ISO-8601 strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+	private static final String PUBLIC_KEY = "MHYwEAYHKoZIzj0CAQYFK4EEACIDYgAEnCFHGYZaJvMnm7lZBtVhYnWCRPSo3xtYIUfuZ03jyZ4u9qazYgNoQBHZj1JY6Oq3GNOzaqXL3RC4SI+FBq/P4EjZYxm1FrPh5ZasfOyBVMOYBMHKKFAL4hnNuwtz0EIy";
+	private static final String JWE = "eyJhbGciOiJFQ0RILUVTIiwiZW5jIjoiQTI1NkdDTSJ9..nZaaaOSTwJGe1sXx.Njd9aWxe8kvJ5a7s_NPCqRAO8oxl9ZQ.vZVB0sUVjW_FL3BqOyBvIA";
+
+	@Param({"10", "1000"})
+	int size;
+
+	private ObjectWriter writer;
+	private List<VaultResource.VaultDto> vaults;
+	private List<UserDto> users;
+
+	@Setup
+	public void setup() {
+		writer = JsonMapper.builder() //
+				.findAndAddModules() //
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) //
+				.build() //
+				.writer();
+		vaults = new ArrayList<>(size);
+		users = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			vaults.add(new VaultResource.VaultDto(UUID.randomUUID(), "Vault " + i, "Description of vault " + i, false, Instant.now(), null, null, null, null, null));
+			var device = new DeviceResource.DeviceDto("device" + i, "Device " + i, Device.Type.DESKTOP, PUBLIC_KEY, JWE, "user" + i, Instant.now(), "127.0.0.1", Instant.now(), false);
+			users.add(new UserDto("user" + i, "User " + i, null, "user" + i + "@example.com", "en", Set.of(device), PUBLIC_KEY, PUBLIC_KEY, JWE, JWE));
+		}
+	}
+
+	@Benchmark
+	public byte[] serializeVaults() throws JsonProcessingException {
+		return writer.writeValueAsBytes(vaults);
+	}
+
+	@Benchmark
+	public byte[] serializeUsers() throws JsonProcessingException {
+		return writer.writeValueAsBytes(users);
+	}
+}
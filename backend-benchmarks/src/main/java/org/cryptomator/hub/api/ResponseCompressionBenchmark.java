@@ -0,0 +1,106 @@
+package org.cryptomator.hub.api;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.cryptomator.hub.entities.Device;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the CPU cost of gzip compressing typical JSON responses of {@code GET /users} and {@code GET /vaults/all} at different compression levels,
+ * i.e. the values of {@code quarkus.http.compression-level}. The resulting payload sizes are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCompressionBenchmark {
+
+	private static final String PUBLIC_KEY = "MHYwEAYHKoZIzj0CAQYFK4EEACIDYgAEnCFHGYZaJvMnm7lZBtVhYnWCRPSo3xtYIUfuZ03jyZ4u9qazYgNoQBHZj1JY6Oq3GNOzaqXL3RC4SI+FBq/P4EjZYxm1FrPh5ZasfOyBVMOYBMHKKFAL4hnNuwtz0EIy";
+	private static final String JWE = "eyJhbGciOiJFQ0RILUVTIiwiZW5jIjoiQTI1NkdDTSJ9..nZaaaOSTwJGe1sXx.Njd9aWxe8kvJ5a7s_NPCqRAO8oxl9ZQ.vZVB0sUVjW_FL3BqOyBvIA";
+
+	@Param({"users", "vaults"})
+	String payload;
+
+	@Param({"100", "1000"})
+	int size;
+
+	@Param({"1", "6", "9"})
+	int level;
+
+	private byte[] json;
+
+	@Setup
+	public void setup() throws IOException {
+		var mapper = JsonMapper.builder() //
+				.findAndAddModules() //
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) //
+				.build();
+		json = switch (payload) {
+			case "users" -> mapper.writeValueAsBytes(users(size));
+			case "vaults" -> mapper.writeValueAsBytes(vaults(size));
+			default -> throw new IllegalArgumentException("Unknown payload " + payload);
+		};
+		var compressed = gzip();
+		System.out.printf("%n%s (%d): %d bytes uncompressed, %d bytes at level %d (%.1f%%)%n", payload, size, json.length, compressed.length, level, 100.0 * compressed.length / json.length);
+	}
+
+	private static ArrayList<UserDto> users(int size) {
+		var users = new ArrayList<UserDto>(size);
+		for (int i = 0; i < size; i++) {
+			var device = new DeviceResource.DeviceDto("device" + i, "Device " + i, Device.Type.DESKTOP, PUBLIC_KEY, JWE, "user" + i, Instant.now(), "127.0.0.1", Instant.now(), false);
+			users.add(new UserDto("user" + i, "User " + i, null, "user" + i + "@example.com", "en", Set.of(device), PUBLIC_KEY, PUBLIC_KEY, JWE, JWE));
+		}
+		return users;
+	}
+
+	private static ArrayList<VaultResource.VaultDto> vaults(int size) {
+		var vaults = new ArrayList<VaultResource.VaultDto>(size);
+		for (int i = 0; i < size; i++) {
+			vaults.add(new VaultResource.VaultDto(UUID.randomUUID(), "Vault " + i, "Description of vault " + i, false, Instant.now(), null, null, null, null, null));
+		}
+		return vaults;
+	}
+
+	@Benchmark
+	public byte[] gzip() throws IOException {
+		var out = new ByteArrayOutputStream(json.length / 4);
+		try (var gzip = new LeveledGZIPOutputStream(out, level)) {
+			gzip.write(json);
+		}
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] uncompressed() {
+		return json.clone(); // baseline: copying the payload without compression
+	}
+
+	private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+		LeveledGZIPOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+			super(out);
+			def.setLevel(level);
+		}
+	}
+}
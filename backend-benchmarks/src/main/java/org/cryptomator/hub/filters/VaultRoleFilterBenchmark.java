@@ -0,0 +1,99 @@
+package org.cryptomator.hub.filters;
+
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.UriInfo;
+import org.cryptomator.hub.entities.EffectiveVaultAccess;
+import org.cryptomator.hub.entities.Vault;
+import org.cryptomator.hub.entities.VaultAccess;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VaultRoleFilterBenchmark {
+
+	private static final UUID VAULT_ID = UUID.fromString("7E57C0DE-0000-4000-8000-000100001111");
+
+	private final VaultRoleFilter ownerFilter = new VaultRoleFilter();
+	private final VaultRoleFilter memberFilter = new VaultRoleFilter();
+	private final ContainerRequestContext context = Mockito.mock(ContainerRequestContext.class);
+
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		var uriInfo = Mockito.mock(UriInfo.class);
+		Mockito.doReturn(new MultivaluedHashMap<>(Map.of(VaultRole.DEFAULT_VAULT_ID_PARAM, VAULT_ID.toString()))).when(uriInfo).getPathParameters();
+		Mockito.doReturn(uriInfo).when(context).getUriInfo();
+		setupFilter(ownerFilter, "owner");
+		setupFilter(memberFilter, "member");
+	}
+
+	private void setupFilter(VaultRoleFilter filter, String userId) throws NoSuchMethodException {
+		var resourceInfo = Mockito.mock(ResourceInfo.class);
+		var jwt = Mockito.mock(JsonWebToken.class);
+		Mockito.doReturn(Resource.class.getMethod("allowOwner")).when(resourceInfo).getResourceMethod();
+		Mockito.doReturn(userId).when(jwt).getSubject();
+		filter.resourceInfo = resourceInfo;
+		filter.jwt = jwt;
+
+		// repositories are stubbed by hand, so that stubbing overhead does not dominate the measured time:
+		filter.vaultRepo = new Vault.Repository() {
+			@Override
+			public Optional<Vault> findByIdOptional(UUID id) {
+				return VAULT_ID.equals(id) ? Optional.of(new Vault()) : Optional.empty();
+			}
+		};
+		filter.effectiveVaultAccessRepo = new EffectiveVaultAccess.Repository() {
+			@Override
+			public Collection<VaultAccess.Role> listRoles(UUID vaultId, String authorityId) {
+				return "owner".equals(authorityId) ? Set.of(VaultAccess.Role.OWNER) : Set.of(VaultAccess.Role.MEMBER);
+			}
+		};
+	}
+
+	@Benchmark
+	public void grantedAccess() {
+		ownerFilter.filter(context);
+	}
+
+	@Benchmark
+	public void deniedAccess(Blackhole bh) {
+		try {
+			memberFilter.filter(context);
+		} catch (ForbiddenException e) {
+			bh.consume(e);
+		}
+	}
+
+	public static class Resource {
+
+		@VaultRole(VaultAccess.Role.OWNER)
+		public void allowOwner() {
+		}
+
+	}
+}
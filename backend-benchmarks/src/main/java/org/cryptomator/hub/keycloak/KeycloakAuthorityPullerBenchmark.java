@@ -0,0 +1,121 @@
+package org.cryptomator.hub.keycloak;
+
+import org.cryptomator.hub.entities.Authority;
+import org.cryptomator.hub.entities.Group;
+import org.cryptomator.hub.entities.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-memory diffing done by {@link KeycloakAuthorityPuller} during a sync with a large realm.
+ * <p>
+ * Keycloak and the database each know {@link #userCount} users, of which one percent only exist on either side.
+ * Users are spread across {@link #groupCount} groups, whose memberships differ by one percent as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class KeycloakAuthorityPullerBenchmark {
+
+	@Param({"100000"})
+	int userCount;
+
+	@Param({"100"})
+	int groupCount;
+
+	private final KeycloakAuthorityPuller puller = new KeycloakAuthorityPuller();
+	private Map<String, KeycloakUserDto> keycloakUsers;
+	private Map<String, User> databaseUsers;
+	private Map<String, KeycloakGroupDto> keycloakGroups;
+	private Map<String, Set<Authority>> databaseMemberships;
+	private Map<String, Group> databaseGroups;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		var offset = userCount / 100;
+		keycloakUsers = HashMap.newHashMap(userCount);
+		databaseUsers = HashMap.newHashMap(userCount);
+		for (int i = 0; i < userCount + offset; i++) {
+			var id = "user" + i;
+			if (i >= offset) {
+				keycloakUsers.put(id, new KeycloakUserDto(id, "User " + i, id + "@example.com", null));
+			}
+			if (i < userCount) {
+				var user = new User();
+				user.setId(id);
+				user.setName("User " + i);
+				databaseUsers.put(id, user);
+			}
+		}
+
+		// groups consist of users known to both sides, except the first (only in database) and last (only in Keycloak) one percent of each group:
+		var groupSize = (userCount - offset) / groupCount;
+		var groupOffset = Math.max(1, groupSize / 100);
+		keycloakGroups = HashMap.newHashMap(groupCount);
+		databaseMemberships = HashMap.newHashMap(groupCount);
+		for (int g = 0; g < groupCount; g++) {
+			var id = "group" + g;
+			var start = offset + g * groupSize;
+			Set<KeycloakUserDto> keycloakMembers = new HashSet<>();
+			Set<Authority> databaseMembers = new HashSet<>();
+			for (int i = start; i < start + groupSize; i++) {
+				if (i >= start + groupOffset) {
+					keycloakMembers.add(keycloakUsers.get("user" + i));
+				}
+				if (i < start + groupSize - groupOffset) {
+					databaseMembers.add(databaseUsers.get("user" + i));
+				}
+			}
+			keycloakGroups.put(id, new KeycloakGroupDto(id, "Group " + g, keycloakMembers));
+			databaseMemberships.put(id, databaseMembers);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		// syncUpdatedGroups() modifies the groups, so restore the original memberships before each call:
+		databaseGroups = HashMap.newHashMap(groupCount);
+		for (var entry : databaseMemberships.entrySet()) {
+			var group = new Group();
+			group.setId(entry.getKey());
+			group.setName("Group");
+			group.setMembers(new HashSet<>(entry.getValue()));
+			databaseGroups.put(entry.getKey(), group);
+		}
+	}
+
+	@Benchmark
+	public Set<String> diffAddedUsers() {
+		return puller.diff(keycloakUsers.keySet(), databaseUsers.keySet());
+	}
+
+	@Benchmark
+	public Set<String> diffDeletedUsers() {
+		return puller.diff(databaseUsers.keySet(), keycloakUsers.keySet());
+	}
+
+	@Benchmark
+	public Map<String, Group> syncUpdatedGroups() {
+		puller.syncUpdatedGroups(keycloakGroups, databaseGroups, Set.of(), databaseUsers);
+		return databaseGroups;
+	}
+}
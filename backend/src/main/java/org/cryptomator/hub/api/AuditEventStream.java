@@ -0,0 +1,330 @@
+package org.cryptomator.hub.api;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.cryptomator.hub.cluster.AuditEventNotifier;
+import org.cryptomator.hub.cluster.AuditEventsCommitted;
+import org.cryptomator.hub.entities.events.AuditEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes committed audit events to all connected SSE subscribers of this node.
+ * <p>
+ * Events persisted by this node are pushed directly. Events persisted by other nodes are {@link AuditEventNotifier announced} when committed
+ * and loaded from the database. If announcements may have been missed, all streams are closed, so clients resume from the database.
+ * <p>
+ * Event ids are drawn from a sequence before the event's transaction commits, so events may be committed out of id order. Instead of the highest id sent,
+ * each subscriber therefore tracks a {@link Cursor} including the lower ids it skipped, which remain open for <code>hub.audit-stream.lookback</code>.
+ * <p>
+ * Each subscriber has its own bounded buffer. If a subscriber can't keep up, its stream gets closed, so the client
+ * reconnects with the <code>Last-Event-ID</code> of the last event it received and catches up from the database.
+ */
+@ApplicationScoped
+public class AuditEventStream {
+
+	private static final Logger LOG = Logger.getLogger(AuditEventStream.class);
+	static final int BUFFER_SIZE = 1000;
+	static final int MAX_OPEN_IDS = 100;
+	static final long HEARTBEAT_INTERVAL_MILLIS = 30_000;
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	@Inject
+	Vertx vertx;
+
+	@Inject
+	AuditEvent.Repository auditEventRepo;
+
+	@Inject
+	@ConfigProperty(name = "hub.audit-stream.lookback", defaultValue = "1m")
+	Duration lookback;
+
+	//visible for testing
+	LongSupplier nanoClock = System::nanoTime;
+
+	private long heartbeatTimerId;
+
+	@PostConstruct
+	void init() {
+		heartbeatTimerId = vertx.setPeriodic(HEARTBEAT_INTERVAL_MILLIS, timerId -> subscribers.forEach(Subscriber::heartbeat));
+	}
+
+	@PreDestroy
+	void destroy() {
+		vertx.cancelTimer(heartbeatTimerId);
+		subscribers.forEach(Subscriber::close);
+	}
+
+	/**
+	 * Registers a new subscriber. Events are buffered but not sent until the subscriber is {@link Subscriber#activate(Cursor, List, boolean) activated}.
+	 * Subscribe <em>before</em> querying missed events, so that no event committed in between gets lost.
+	 *
+	 * @param sink the sink to send events to
+	 * @param sse  the sse context
+	 * @return the new subscriber
+	 */
+	Subscriber subscribe(SseEventSink sink, Sse sse) {
+		var subscriber = new Subscriber(sink, sse, BUFFER_SIZE, lookback.toNanos(), nanoClock, subscribers::remove);
+		subscribers.add(subscriber);
+		return subscriber;
+	}
+
+	void onAuditEventPersisted(@Observes(during = TransactionPhase.AFTER_SUCCESS) AuditEvent event) {
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		var dto = AuditLogResource.AuditEventDto.fromEntity(event);
+		subscribers.forEach(s -> s.offer(dto));
+	}
+
+	void onAuditEventsCommittedElsewhere(@Observes AuditEventsCommitted committed) {
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		if (committed.ids() == null) {
+			LOG.info("Audit events of other nodes may have been missed. Closing streams, so clients resume from the database.");
+			subscribers.forEach(Subscriber::close);
+			return;
+		}
+		var dtos = QuarkusTransaction.requiringNew().call(() -> auditEventRepo.findAllInList(committed.ids()).stream().map(AuditLogResource.AuditEventDto::fromEntity).toList());
+		subscribers.forEach(s -> dtos.forEach(s::offer));
+	}
+
+	//visible for testing
+	int subscriberCount() {
+		return subscribers.size();
+	}
+
+	/**
+	 * Position within the stream, sent as SSE event id, so clients can resume using <code>Last-Event-ID</code>.
+	 * Formatted as the last id, followed by a colon and the comma-separated open ids, if any, e.g. <code>105:101,103</code>.
+	 *
+	 * @param lastId  the highest event id sent
+	 * @param openIds lower ids not sent yet, as their events may still be committed, in ascending order
+	 */
+	record Cursor(long lastId, List<Long> openIds) {
+
+		private static final Pattern FORMAT = Pattern.compile("(\\d{1,18})(?::(\\d{1,18}(?:,\\d{1,18}){0," + (MAX_OPEN_IDS - 1) + "}))?");
+
+		/**
+		 * Parses a cursor formatted by {@link #toString()}. A plain event id is a valid cursor without open ids.
+		 *
+		 * @param value the formatted cursor
+		 * @return the cursor
+		 * @throws IllegalArgumentException if the value is malformed or any open id is not lower than the last id
+		 */
+		static Cursor parse(String value) throws IllegalArgumentException {
+			var matcher = FORMAT.matcher(value);
+			if (!matcher.matches()) {
+				throw new IllegalArgumentException("Invalid cursor: " + value);
+			}
+			var lastId = Long.parseLong(matcher.group(1));
+			var openIds = matcher.group(2) == null ? List.<Long>of() : Arrays.stream(matcher.group(2).split(",")).map(Long::valueOf).distinct().sorted().toList();
+			if (!openIds.isEmpty() && openIds.getLast() >= lastId) {
+				throw new IllegalArgumentException("Invalid cursor: " + value);
+			}
+			return new Cursor(lastId, openIds);
+		}
+
+		@Override
+		public String toString() {
+			if (openIds.isEmpty()) {
+				return Long.toString(lastId);
+			} else {
+				return lastId + ":" + openIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+			}
+		}
+	}
+
+	static final class Subscriber {
+
+		private final SseEventSink sink;
+		private final Sse sse;
+		private final int capacity;
+		private final long lookbackNanos;
+		private final LongSupplier nanoClock;
+		private final Consumer<Subscriber> onClose;
+		private final List<AuditLogResource.AuditEventDto> buffered = new ArrayList<>(); // offered before activation
+		private final Deque<Queued> pending = new ArrayDeque<>();
+		private final TreeMap<Long, Long> openIds = new TreeMap<>(); // skipped event id -> System.nanoTime() when to give up on it
+		private long lastId;
+		private boolean active;
+		private boolean sending;
+		private boolean closeWhenDrained;
+		private boolean closed;
+
+		Subscriber(SseEventSink sink, Sse sse, int capacity, long lookbackNanos, LongSupplier nanoClock, Consumer<Subscriber> onClose) {
+			this.sink = sink;
+			this.sse = sse;
+			this.capacity = capacity;
+			this.lookbackNanos = lookbackNanos;
+			this.nanoClock = nanoClock;
+			this.onClose = onClose;
+		}
+
+		/**
+		 * Starts sending events, beginning with the given missed events.
+		 *
+		 * @param cursor    the client's cursor or, if it has none, the latest event id when subscribing
+		 * @param replay    events committed after the cursor, i.e. with higher or open ids, in ascending order
+		 * @param truncated whether <code>replay</code> is incomplete. If so, only the replayed events are sent and the stream is closed afterwards, so the client resumes from the last replayed event.
+		 */
+		synchronized void activate(Cursor cursor, List<AuditLogResource.AuditEventDto> replay, boolean truncated) {
+			if (closed) {
+				return;
+			}
+			var deadline = nanoClock.getAsLong() + lookbackNanos;
+			lastId = cursor.lastId();
+			cursor.openIds().forEach(id -> openIds.put(id, deadline));
+			active = true;
+			replay.forEach(this::accept);
+			if (truncated) {
+				closeWhenDrained = true;
+			} else {
+				buffered.forEach(this::accept);
+			}
+			buffered.clear();
+			sendNext();
+		}
+
+		synchronized void offer(AuditLogResource.AuditEventDto event) {
+			if (closed) {
+				return;
+			}
+			if (pending.size() + buffered.size() >= capacity) {
+				LOG.warnv("Audit event stream subscriber exceeded buffer of {0} events. Closing stream.", capacity);
+				close();
+				return;
+			}
+			if (active) {
+				accept(event);
+				sendNext();
+			} else {
+				buffered.add(event);
+			}
+		}
+
+		/**
+		 * @return the position after all events queued for this subscriber
+		 */
+		synchronized Cursor cursor() {
+			expireOpenIds();
+			return new Cursor(lastId, List.copyOf(openIds.keySet()));
+		}
+
+		synchronized void heartbeat() {
+			if (sink.isClosed()) {
+				close();
+			} else if (active && !sending) {
+				send(sse.newEventBuilder().comment("keep-alive").build());
+			}
+		}
+
+		synchronized void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			buffered.clear();
+			pending.clear();
+			onClose.accept(this);
+			sink.close();
+		}
+
+		//visible for testing
+		synchronized Collection<AuditLogResource.AuditEventDto> pending() {
+			return pending.stream().map(Queued::event).toList();
+		}
+
+		/**
+		 * Queues the event, unless it has already been sent or its id is no longer open, and advances the cursor.
+		 */
+		private void accept(AuditLogResource.AuditEventDto event) {
+			var id = event.id();
+			if (id > lastId) {
+				var deadline = nanoClock.getAsLong() + lookbackNanos;
+				for (var skipped = Math.max(lastId + 1, id - MAX_OPEN_IDS); skipped < id; skipped++) {
+					openIds.put(skipped, deadline);
+				}
+				lastId = id;
+			} else if (openIds.remove(id) == null) {
+				return;
+			}
+			while (openIds.size() > MAX_OPEN_IDS) {
+				openIds.pollFirstEntry(); // the oldest skipped ids most likely belong to rolled back transactions
+			}
+			pending.addLast(new Queued(event, cursor()));
+		}
+
+		private void expireOpenIds() {
+			var now = nanoClock.getAsLong();
+			openIds.values().removeIf(deadline -> deadline - now < 0);
+		}
+
+		private void sendNext() {
+			if (!active || sending || closed) {
+				return;
+			}
+			var next = pending.pollFirst();
+			if (next != null) {
+				send(sse.newEventBuilder()
+						.id(next.cursor().toString())
+						.mediaType(MediaType.APPLICATION_JSON_TYPE)
+						.data(AuditLogResource.AuditEventDto.class, next.event())
+						.build());
+			} else if (closeWhenDrained) {
+				close();
+			}
+		}
+
+		private void send(OutboundSseEvent event) {
+			sending = true;
+			sink.send(event).whenComplete((result, e) -> onSent(e));
+		}
+
+		private synchronized void onSent(Throwable error) {
+			sending = false;
+			if (error != null) {
+				close();
+			} else {
+				sendNext();
+			}
+		}
+	}
+
+	/**
+	 * An event waiting to be sent.
+	 *
+	 * @param event  the event
+	 * @param cursor the position after this event, sent as its id
+	 */
+	private record Queued(AuditLogResource.AuditEventDto event, Cursor cursor) {
+	}
+
+}
@@ -3,18 +3,24 @@ package org.cryptomator.hub.api;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import org.cryptomator.hub.entities.Device;
 import org.cryptomator.hub.entities.VaultAccess;
 import org.cryptomator.hub.entities.events.AuditEvent;
+import org.cryptomator.hub.entities.events.AuditEventRollup;
 import org.cryptomator.hub.entities.events.DeviceRegisteredEvent;
 import org.cryptomator.hub.entities.events.DeviceRemovedEvent;
 import org.cryptomator.hub.entities.events.SettingWotUpdateEvent;
@@ -36,17 +42,30 @@ import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
+@RunOnVirtualThread
 @Path("/auditlog")
 public class AuditLogResource {
 
+	private static final Set<String> VALID_TYPES = Set.of(DeviceRegisteredEvent.TYPE, DeviceRemovedEvent.TYPE, UserAccountResetEvent.TYPE, UserKeysChangeEvent.TYPE, UserSetupCodeChangeEvent.TYPE,
+			SettingWotUpdateEvent.TYPE, SignedWotIdEvent.TYPE, VaultCreatedEvent.TYPE, VaultUpdatedEvent.TYPE, VaultAccessGrantedEvent.TYPE,
+			VaultKeyRetrievedEvent.TYPE, VaultMemberAddedEvent.TYPE, VaultMemberRemovedEvent.TYPE, VaultMemberUpdatedEvent.TYPE, VaultOwnershipClaimedEvent.TYPE);
+	private static final Duration MAX_STATS_PERIOD = Duration.ofDays(366);
+	private static final int MAX_STREAM_REPLAY = 1000;
+
 	@Inject
 	AuditEvent.Repository auditEventRepo;
 	@Inject
+	AuditEventRollup.Repository auditEventRollupRepo;
+	@Inject
+	AuditEventStream auditEventStream;
+	@Inject
 	LicenseHolder license;
 
 	@GET
@@ -79,10 +98,7 @@ public class AuditLogResource {
 		} else if (type == null) {
 			throw new BadRequestException("type must be specified");
 		} else if (!type.isEmpty()) {
-			var validTypes = Set.of(DeviceRegisteredEvent.TYPE, DeviceRemovedEvent.TYPE, UserAccountResetEvent.TYPE, UserKeysChangeEvent.TYPE, UserSetupCodeChangeEvent.TYPE,
-					SettingWotUpdateEvent.TYPE, SignedWotIdEvent.TYPE, VaultCreatedEvent.TYPE, VaultUpdatedEvent.TYPE, VaultAccessGrantedEvent.TYPE,
-					VaultKeyRetrievedEvent.TYPE, VaultMemberAddedEvent.TYPE, VaultMemberRemovedEvent.TYPE, VaultMemberUpdatedEvent.TYPE, VaultOwnershipClaimedEvent.TYPE);
-			if (!validTypes.containsAll(type)) {
+			if (!VALID_TYPES.containsAll(type)) {
 				throw new BadRequestException("Invalid event type provided");
 			}
 		} else if (paginationId == null) {
@@ -92,6 +108,94 @@ public class AuditLogResource {
 		return auditEventRepo.findAllInPeriod(startDate, endDate, type, paginationId, order.equals("asc"), pageSize).map(AuditEventDto::fromEntity).toList();
 	}
 
+	@GET
+	@Path("/stream")
+	@RolesAllowed("admin")
+	@Produces(MediaType.SERVER_SENT_EVENTS)
+	@Operation(summary = "stream new auditlog entries", description = "pushes auditlog entries as server-sent events as soon as they are persisted. Each event's data is the same json as returned by GET /auditlog. Its id is a cursor consisting of the highest entry id sent so far, followed by a colon and the lower ids of entries that may still be persisted, if any, e.g. 105:101,103. As entries are persisted out of id order, their ids are not strictly ascending.")
+	@Parameter(name = "Last-Event-ID", description = "id of the last received event. Entries persisted since then are sent before any new entries. If omitted, only new entries are sent.", in = ParameterIn.HEADER)
+	@Parameter(name = "lastEventId", description = "same as the Last-Event-ID header, for clients that can't set headers. Ignored if the header is present.", in = ParameterIn.QUERY)
+	@APIResponse(responseCode = "200", description = "Event stream. If the client falls behind or more than 1000 entries are pending, the stream is closed and should be resumed using the Last-Event-ID.")
+	@APIResponse(responseCode = "400", description = "invalid Last-Event-ID")
+	@APIResponse(responseCode = "402", description = "Community license used or license expired")
+	@APIResponse(responseCode = "403", description = "requesting user does not have admin role")
+	public void streamEvents(@HeaderParam("Last-Event-ID") String lastEventIdHeader, @QueryParam("lastEventId") String lastEventIdParam, @Context SseEventSink sink, @Context Sse sse) {
+		if (!license.isSet() || license.isExpired()) {
+			throw new PaymentRequiredException("Community license used or license expired");
+		}
+		var lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+		AuditEventStream.Cursor cursor;
+		try {
+			cursor = lastEventId == null ? null : AuditEventStream.Cursor.parse(lastEventId);
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid Last-Event-ID", e);
+		}
+
+		var subscriber = auditEventStream.subscribe(sink, sse); // subscribe before replaying, so nothing gets lost in between
+		if (cursor == null) {
+			subscriber.activate(new AuditEventStream.Cursor(auditEventRepo.findMaxId(), List.of()), List.of(), false);
+		} else {
+			var missed = auditEventRepo.findAllAfterId(cursor.lastId(), cursor.openIds(), MAX_STREAM_REPLAY + 1);
+			var replay = missed.stream().limit(MAX_STREAM_REPLAY).map(AuditEventDto::fromEntity).toList();
+			subscriber.activate(cursor, replay, missed.size() > MAX_STREAM_REPLAY);
+		}
+	}
+
+	@GET
+	@Path("/stats")
+	@RolesAllowed("admin")
+	@Produces(MediaType.APPLICATION_JSON)
+	@Operation(summary = "aggregate auditlog entries within a period", description = "counts auditlog entries from a period specified by a start and end date, bucketed by hour or day and optionally grouped by a single dimension")
+	@Parameter(name = "startDate", description = "the start date of the period as ISO 8601 datetime string, inclusive. Rounded down to the full hour.", in = ParameterIn.QUERY)
+	@Parameter(name = "endDate", description = "the end date of the period as ISO 8601 datetime string, exclusive. Rounded up to the full hour. The period must not exceed 366 days.", in = ParameterIn.QUERY)
+	@Parameter(name = "interval", description = "the size of each bucket. Allowed values are 'hour' (default) or 'day'. Day buckets are aligned to UTC.", in = ParameterIn.QUERY)
+	@Parameter(name = "groupBy", description = "the dimension to group by within each bucket. Allowed values are 'type', 'vault', 'user' (the acting user), 'device' or 'result'. If omitted, all matching events are counted.", in = ParameterIn.QUERY)
+	@Parameter(name = "type", description = "the list of type of events to count. Empty list is all events.", in = ParameterIn.QUERY)
+	@Parameter(name = "vaultId", description = "only count events of the given vault", in = ParameterIn.QUERY)
+	@Parameter(name = "userId", description = "only count events caused by the given user", in = ParameterIn.QUERY)
+	@Parameter(name = "result", description = "only count events with the given result, e.g. 'UNAUTHORIZED' for denied vault key retrievals", in = ParameterIn.QUERY)
+	@APIResponse(responseCode = "200", description = "Body contains the non-empty buckets ordered by start and key")
+	@APIResponse(responseCode = "400", description = "startDate or endDate not specified, startDate > endDate, period too long, interval, groupBy, type or result is not valid")
+	@APIResponse(responseCode = "402", description = "Community license used or license expired")
+	@APIResponse(responseCode = "403", description = "requesting user does not have admin role")
+	public List<AuditEventStatsDto> getStats(@QueryParam("startDate") Instant startDate, @QueryParam("endDate") Instant endDate, @QueryParam("interval") @DefaultValue("hour") String interval, @QueryParam("groupBy") String groupBy, @QueryParam("type") List<String> type, @QueryParam("vaultId") UUID vaultId, @QueryParam("userId") String userId, @QueryParam("result") String result) {
+		if (!license.isSet() || license.isExpired()) {
+			throw new PaymentRequiredException("Community license used or license expired");
+		}
+
+		if (startDate == null || endDate == null) {
+			throw new BadRequestException("startDate and endDate must be specified");
+		} else if (startDate.isAfter(endDate)) {
+			throw new BadRequestException("startDate must be before endDate");
+		} else if (Duration.between(startDate, endDate).compareTo(MAX_STATS_PERIOD) > 0) {
+			throw new BadRequestException("period must not exceed " + MAX_STATS_PERIOD.toDays() + " days");
+		} else if (type == null) {
+			throw new BadRequestException("type must be specified");
+		} else if (!VALID_TYPES.containsAll(type)) {
+			throw new BadRequestException("Invalid event type provided");
+		} else if (result != null && Arrays.stream(VaultKeyRetrievedEvent.Result.values()).noneMatch(r -> r.name().equals(result))) {
+			throw new BadRequestException("Invalid result provided");
+		}
+
+		final AuditEventRollup.Interval parsedInterval;
+		final AuditEventRollup.GroupBy parsedGroupBy;
+		try {
+			parsedInterval = AuditEventRollup.Interval.valueOf(interval.toUpperCase());
+			parsedGroupBy = groupBy == null ? null : AuditEventRollup.GroupBy.valueOf(groupBy.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("interval must be either 'hour' or 'day' and groupBy one of 'type', 'vault', 'user', 'device' or 'result'");
+		}
+
+		return auditEventRollupRepo.sum(startDate, endDate, parsedInterval, parsedGroupBy, type, vaultId, userId, result).stream().map(AuditEventStatsDto::fromBucket).toList();
+	}
+
+	public record AuditEventStatsDto(@JsonProperty("start") Instant start, @JsonProperty("key") String key, @JsonProperty("count") long count) {
+
+		static AuditEventStatsDto fromBucket(AuditEventRollup.Bucket bucket) {
+			return new AuditEventStatsDto(bucket.start(), bucket.key(), bucket.count());
+		}
+	}
+
 	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 	@JsonSubTypes({ //
 			@JsonSubTypes.Type(value = DeviceRegisteredEventDto.class, name = DeviceRegisteredEvent.TYPE), //
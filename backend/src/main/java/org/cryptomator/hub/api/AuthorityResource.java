@@ -1,5 +1,6 @@
 package org.cryptomator.hub.api;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -8,14 +9,22 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
 import org.cryptomator.hub.entities.Authority;
+import org.cryptomator.hub.filters.DefaultCacheControl;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.jboss.resteasy.reactive.NoCache;
 
 import java.util.List;
 
+@RunOnVirtualThread
 @Path("/authorities")
 @Produces(MediaType.TEXT_PLAIN)
 public class AuthorityResource {
@@ -37,12 +46,18 @@ public class AuthorityResource {
 	@GET
 	@Path("/")
 	@RolesAllowed("user")
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
-	@NoCache
 	@Operation(summary = "lists all authorities matching the given ids", description = "lists for each id in the list its corresponding authority. Ignores all id's where an authority cannot be found")
-	@APIResponse(responseCode = "200")
-	public List<AuthorityDto> getSome(@QueryParam("ids") List<String> authorityIds) {
-		return authorityRepo.findAllInList(authorityIds).map(AuthorityDto::fromEntity).toList();
+	@APIResponse(responseCode = "200", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = AuthorityDto.class)))
+	@APIResponse(responseCode = "304", description = "authorities unchanged since the given ETag")
+	public Response getSome(@QueryParam("ids") List<String> authorityIds, @Context Request request) {
+		var etag = ConditionalGet.etag(authorityRepo.syncVersionOfAllInList(authorityIds));
+		var notModified = ConditionalGet.notModified(request, etag);
+		if (notModified != null) {
+			return notModified;
+		}
+		return ConditionalGet.ok(authorityRepo.findAllInList(authorityIds).map(AuthorityDto::fromEntity).toList(), etag);
 	}
 
 }
\ No newline at end of file
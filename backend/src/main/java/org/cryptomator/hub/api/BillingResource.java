@@ -3,6 +3,7 @@ package org.cryptomator.hub.api;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -14,9 +15,9 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import org.cryptomator.hub.entities.EffectiveVaultAccess;
 import org.cryptomator.hub.entities.Settings;
 import org.cryptomator.hub.license.LicenseHolder;
+import org.cryptomator.hub.license.SeatCounter;
 import org.cryptomator.hub.validation.ValidJWS;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
@@ -25,13 +26,14 @@ import java.time.Instant;
 import java.util.Optional;
 
 //TODO: redirect ot /license path
+@RunOnVirtualThread
 @Path("/billing")
 public class BillingResource {
 
 	@Inject
 	LicenseHolder licenseHolder;
 	@Inject
-	EffectiveVaultAccess.Repository effectiveVaultAccessRepo;
+	SeatCounter seatCounter;
 	@Inject
 	Settings.Repository settingsRepo;
 
@@ -44,12 +46,12 @@ public class BillingResource {
 	@APIResponse(responseCode = "200")
 	@APIResponse(responseCode = "403", description = "only admins are allowed to get the billing information")
 	public BillingDto get() {
-		int usedSeats = (int) effectiveVaultAccessRepo.countSeatOccupyingUsers();
+		int usedSeats = (int) seatCounter.countSeatOccupyingUsers();
 		boolean isManaged = licenseHolder.isManagedInstance();
 		return Optional.ofNullable(licenseHolder.get())
 				.map(jwt -> BillingDto.fromDecodedJwt(jwt, usedSeats, isManaged))
 				.orElseGet(() -> {
-					var hubId = settingsRepo.get().getHubId();
+					var hubId = settingsRepo.getCached().hubId();
 					return BillingDto.create(hubId, (int) licenseHolder.getSeats(), usedSeats, isManaged);
 				});
 	}
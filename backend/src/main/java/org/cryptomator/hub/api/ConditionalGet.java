@@ -0,0 +1,53 @@
+package org.cryptomator.hub.api;
+
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.cryptomator.hub.http.Fingerprint;
+
+/**
+ * Answers conditional GET requests using entity tags derived from cheap validators, such as {@link org.cryptomator.hub.entities.SyncVersion SyncVersions},
+ * so <code>If-None-Match</code> can be evaluated without loading any entities.
+ * <p>
+ * Responses remain private: They may be stored by the user agent, but not by shared caches, and must be revalidated before each use.
+ */
+final class ConditionalGet {
+
+	private static final CacheControl PRIVATE_NO_CACHE = CacheControl.valueOf("private, no-cache");
+
+	private ConditionalGet() {
+	}
+
+	/**
+	 * Creates a weak entity tag, as the representation may differ in insignificant details, such as the order of list elements.
+	 *
+	 * @param validators Values that change whenever the representation changes
+	 * @return An opaque entity tag
+	 */
+	static EntityTag etag(Object... validators) {
+		return new EntityTag(Fingerprint.ofValues(validators), true);
+	}
+
+	/**
+	 * Evaluates the request's <code>If-None-Match</code> header.
+	 *
+	 * @param request The request
+	 * @param etag    The entity tag of the current representation
+	 * @return A 304 response or <code>null</code> if the representation needs to be sent
+	 */
+	static Response notModified(Request request, EntityTag etag) {
+		var response = request.evaluatePreconditions(etag);
+		return response == null ? null : response.tag(etag).cacheControl(PRIVATE_NO_CACHE).build();
+	}
+
+	/**
+	 * @param entity The representation
+	 * @param etag   The entity tag of the representation
+	 * @return A 200 response carrying the entity tag
+	 */
+	static Response ok(Object entity, EntityTag etag) {
+		return Response.ok(entity).tag(etag).cacheControl(PRIVATE_NO_CACHE).build();
+	}
+
+}
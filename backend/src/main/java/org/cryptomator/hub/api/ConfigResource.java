@@ -2,20 +2,36 @@ package org.cryptomator.hub.api;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.oidc.OidcConfigurationMetadata;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.PermitAll;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.cryptomator.hub.filters.DefaultCacheControl;
+import org.cryptomator.hub.http.Fingerprint;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
+@RunOnVirtualThread
 @Path("/config")
 public class ConfigResource {
 
+	static final String SERVER_TIME_HEADER = "X-Server-Time";
+	private static final CacheControl NO_CACHE = CacheControl.valueOf("no-cache");
+
 	@Inject
 	@ConfigProperty(name = "hub.keycloak.public-url", defaultValue = "")
 	String keycloakPublicUrl;
@@ -39,17 +55,54 @@ public class ConfigResource {
 	@Inject
 	OidcConfigurationMetadata oidcConfData;
 
+	/**
+	 * Everything but the server time, which doesn't change during runtime. Computed on first request, as the OIDC metadata is request-scoped.
+	 */
+	private volatile StaticConfig staticConfig;
 
 	@PermitAll
 	@GET
 	@Path("/")
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
-	public ConfigDto getConfig() {
+	@Operation(summary = "get the configuration", description = "The server time is also sent in the X-Server-Time header, which is present on 304 responses as well.")
+	@APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = ConfigDto.class)))
+	@APIResponse(responseCode = "304", description = "configuration unchanged since the given ETag")
+	public Response getConfig(@Context Request request) {
+		var config = getStaticConfig();
+		var serverTime = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+		var response = request.evaluatePreconditions(config.etag());
+		if (response == null) {
+			response = Response.ok(config.dto().withServerTime(serverTime));
+		}
+		return response.tag(config.etag()).cacheControl(NO_CACHE).header(SERVER_TIME_HEADER, serverTime.toString()).build();
+	}
+
+	private StaticConfig getStaticConfig() {
+		var config = staticConfig;
+		if (config == null) {
+			// computing it twice in case of concurrent first requests is harmless:
+			config = computeStaticConfig();
+			staticConfig = config;
+		}
+		return config;
+	}
+
+	//visible for testing
+	StaticConfig computeStaticConfig() {
 		var publicRealmUri = trimTrailingSlash(keycloakPublicUrl + "/realms/" + keycloakRealm);
 		var authUri = replacePrefix(oidcConfData.getAuthorizationUri(), trimTrailingSlash(internalRealmUrl), publicRealmUri);
 		var tokenUri = replacePrefix(oidcConfData.getTokenUri(), trimTrailingSlash(internalRealmUrl), publicRealmUri);
+		var dto = new ConfigDto(keycloakPublicUrl, keycloakRealm, keycloakClientIdHub, keycloakClientIdCryptomator, authUri, tokenUri, null, 4);
+		return new StaticConfig(dto, etag(dto));
+	}
 
-		return new ConfigDto(keycloakPublicUrl, keycloakRealm, keycloakClientIdHub, keycloakClientIdCryptomator, authUri, tokenUri, Instant.now().truncatedTo(ChronoUnit.MILLIS), 4);
+	/**
+	 * Weak, since the body still contains the server time. Apart from it, representations with the same tag are identical.
+	 */
+	private static EntityTag etag(ConfigDto dto) {
+		var fingerprint = Fingerprint.ofValues(dto.keycloakUrl(), dto.keycloakRealm(), dto.keycloakClientIdHub(), dto.keycloakClientIdCryptomator(), dto.authEndpoint(), dto.tokenEndpoint(), dto.apiLevel());
+		return new EntityTag(fingerprint, true);
 	}
 
 	//visible for testing
@@ -76,6 +129,14 @@ public class ConfigResource {
 							@JsonProperty("keycloakClientIdHub") String keycloakClientIdHub, @JsonProperty("keycloakClientIdCryptomator") String keycloakClientIdCryptomator,
 							@JsonProperty("keycloakAuthEndpoint") String authEndpoint, @JsonProperty("keycloakTokenEndpoint") String tokenEndpoint,
 							@JsonProperty("serverTime") Instant serverTime, @JsonProperty("apiLevel") Integer apiLevel) {
+
+		public ConfigDto withServerTime(Instant serverTime) {
+			return new ConfigDto(keycloakUrl, keycloakRealm, keycloakClientIdHub, keycloakClientIdCryptomator, authEndpoint, tokenEndpoint, serverTime, apiLevel);
+		}
+	}
+
+	//visible for testing
+	record StaticConfig(ConfigDto dto, EntityTag etag) {
 	}
 
 }
@@ -1,19 +1,29 @@
 package org.cryptomator.hub.api;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
 import org.cryptomator.hub.entities.Group;
 import org.cryptomator.hub.entities.User;
+import org.cryptomator.hub.filters.DefaultCacheControl;
 import org.cryptomator.hub.validation.ValidId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
 import java.util.List;
 
+@RunOnVirtualThread
 @Path("/groups")
 public class GroupsResource {
 
@@ -25,10 +35,18 @@ public class GroupsResource {
 	@GET
 	@Path("/")
 	@RolesAllowed("user")
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
 	@Operation(summary = "list all groups")
-	public List<GroupDto> getAll() {
-		return groupRepo.findAll().stream().map(GroupDto::fromEntity).toList();
+	@APIResponse(responseCode = "200", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = GroupDto.class)))
+	@APIResponse(responseCode = "304", description = "groups unchanged since the given ETag")
+	public Response getAll(@Context Request request) {
+		var etag = ConditionalGet.etag(groupRepo.syncVersionOfAll());
+		var notModified = ConditionalGet.notModified(request, etag);
+		if (notModified != null) {
+			return notModified;
+		}
+		return ConditionalGet.ok(groupRepo.findAll().stream().map(GroupDto::fromEntity).toList(), etag);
 	}
 
 	@GET
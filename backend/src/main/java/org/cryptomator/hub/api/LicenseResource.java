@@ -2,20 +2,22 @@ package org.cryptomator.hub.api;
 
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
-import org.cryptomator.hub.entities.EffectiveVaultAccess;
 import org.cryptomator.hub.license.LicenseHolder;
+import org.cryptomator.hub.license.SeatCounter;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
 import java.time.Instant;
 import java.util.Optional;
 
+@RunOnVirtualThread
 @Path("/license")
 public class LicenseResource {
 
@@ -23,7 +25,7 @@ public class LicenseResource {
 	LicenseHolder licenseHolder;
 
 	@Inject
-	EffectiveVaultAccess.Repository effectiveVaultAccessRepo;
+	SeatCounter seatCounter;
 
 	@GET
 	@Path("/user-info")
@@ -32,7 +34,7 @@ public class LicenseResource {
 	@Operation(summary = "Get license information for regular users", description = "Information includes the licensed seats, the already used seats and if defined, the license expiration date.")
 	@APIResponse(responseCode = "200")
 	public LicenseUserInfoDto get() {
-		int usedSeats = (int) effectiveVaultAccessRepo.countSeatOccupyingUsers();
+		int usedSeats = (int) seatCounter.countSeatOccupyingUsers();
 		return LicenseUserInfoDto.create(licenseHolder, usedSeats);
 	}
 
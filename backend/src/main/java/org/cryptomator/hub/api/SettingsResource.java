@@ -1,6 +1,7 @@
 package org.cryptomator.hub.api;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -13,14 +14,21 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import org.cryptomator.hub.cluster.SettingsChangeNotifier;
 import org.cryptomator.hub.entities.Settings;
 import org.cryptomator.hub.entities.events.EventLogger;
+import org.cryptomator.hub.filters.DefaultCacheControl;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
+@RunOnVirtualThread
 @Path("/settings")
 public class SettingsResource {
 
@@ -30,17 +38,27 @@ public class SettingsResource {
 	@Inject
 	Settings.Repository settingsRepo;
 
+	@Inject
+	SettingsChangeNotifier settingsChangeNotifier;
+
 	@Inject
 	JsonWebToken jwt;
 
 	@GET
 	@RolesAllowed("user")
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
 	@Operation(summary = "get the billing information")
-	@APIResponse(responseCode = "200")
-	@Transactional
-	public SettingsDto get() {
-		return SettingsDto.fromEntity(settingsRepo.get());
+	@APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = SettingsDto.class)))
+	@APIResponse(responseCode = "304", description = "settings unchanged since the given ETag")
+	public Response get(@Context Request request) {
+		var snapshot = settingsRepo.getCached();
+		var etag = ConditionalGet.etag(snapshot.hubId(), snapshot.wotMaxDepth(), snapshot.wotIdVerifyLen());
+		var notModified = ConditionalGet.notModified(request, etag);
+		if (notModified != null) {
+			return notModified;
+		}
+		return ConditionalGet.ok(SettingsDto.fromSnapshot(snapshot), etag);
 	}
 
 	@PUT
@@ -57,7 +75,8 @@ public class SettingsResource {
 		var oldWotMaxDepth = settings.getWotMaxDepth();
 		settings.setWotMaxDepth(dto.wotMaxDepth);
 		settings.setWotIdVerifyLen(dto.wotIdVerifyLen);
-		settingsRepo.persist(settings);
+		settingsRepo.update(settings);
+		settingsChangeNotifier.publish();
 		if (oldWotMaxDepth != dto.wotMaxDepth || oldWotIdVerifyLen != dto.wotIdVerifyLen) {
 			eventLogger.logWotSettingUpdated(jwt.getSubject(), dto.wotIdVerifyLen, dto.wotMaxDepth);
 		}
@@ -66,8 +85,8 @@ public class SettingsResource {
 
 	public record SettingsDto(@JsonProperty("hubId") String hubId, @JsonProperty("wotMaxDepth") @Min(0) @Max(9) int wotMaxDepth, @JsonProperty("wotIdVerifyLen") @Min(0) int wotIdVerifyLen) {
 
-		public static SettingsDto fromEntity(Settings entity) {
-			return new SettingsDto(entity.getHubId(), entity.getWotMaxDepth(), entity.getWotIdVerifyLen());
+		public static SettingsDto fromSnapshot(Settings.Snapshot snapshot) {
+			return new SettingsDto(snapshot.hubId(), snapshot.wotMaxDepth(), snapshot.wotIdVerifyLen());
 		}
 
 	}
@@ -1,12 +1,15 @@
 package org.cryptomator.hub.api;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.NotFoundException;
@@ -16,7 +19,9 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import org.cryptomator.hub.entities.AccessToken;
 import org.cryptomator.hub.entities.Device;
@@ -28,9 +33,14 @@ import org.cryptomator.hub.entities.WotEntry;
 import org.cryptomator.hub.entities.events.AuditEvent;
 import org.cryptomator.hub.entities.events.EventLogger;
 import org.cryptomator.hub.entities.events.VaultKeyRetrievedEvent;
+import org.cryptomator.hub.filters.DefaultCacheControl;
+import org.cryptomator.hub.http.Fingerprint;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.jboss.resteasy.reactive.NoCache;
@@ -41,9 +51,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@RunOnVirtualThread
 @Path("/users")
 @Produces(MediaType.TEXT_PLAIN)
 public class UsersResource {
@@ -68,6 +81,9 @@ public class UsersResource {
 	@Inject
 	JsonWebToken jwt;
 
+	@Inject
+	MeterRegistry meterRegistry;
+
 	@PUT
 	@Path("/me")
 	@RolesAllowed("user")
@@ -78,52 +94,79 @@ public class UsersResource {
 	public Response putMe(@Nullable @Valid UserDto dto) {
 		var userId = jwt.getSubject();
 		User user = userRepo.findById(userId);
-		if (user == null) {
+		boolean created = user == null;
+		if (created) {
 			user = new User();
 			user.setId(userId);
 		}
-		user.setName(jwt.getName());
-		user.setPictureUrl(jwt.getClaim("picture"));
-		user.setEmail(jwt.getClaim("email"));
+		boolean changed = updateIfChanged(user.getName(), jwt.getName(), user::setName);
+		changed |= updateIfChanged(user.getPictureUrl(), jwt.getClaim("picture"), user::setPictureUrl);
+		changed |= updateIfChanged(user.getEmail(), jwt.getClaim("email"), user::setEmail);
 		if (dto != null) {
-			if (!Objects.equals(user.getSetupCode(), dto.getSetupCode())) {
-				user.setSetupCode(dto.getSetupCode());
+			if (updateIfChanged(user.getSetupCode(), dto.getSetupCode(), user::setSetupCode)) {
 				eventLogger.logUserSetupCodeChanged(jwt.getSubject());
+				changed = true;
 			}
 			if (!Objects.equals(user.getEcdhPublicKey(), dto.getEcdhPublicKey()) || !Objects.equals(user.getEcdsaPublicKey(), dto.getEcdsaPublicKey()) || !Objects.equals(user.getPrivateKeys(), dto.getPrivateKeys())) {
 				user.setEcdhPublicKey(dto.getEcdhPublicKey());
 				user.setEcdsaPublicKey(dto.getEcdsaPublicKey());
 				user.setPrivateKeys(dto.getPrivateKeys());
 				eventLogger.logUserKeysChanged(jwt.getSubject(), jwt.getName());
+				changed = true;
+			}
+			changed |= updateIfChanged(user.getLanguage(), dto.getLanguage(), user::setLanguage);
+			if (!created) {
+				updateDevices(user, dto);
 			}
-			updateDevices(user, dto);
-			user.setLanguage(dto.getLanguage());
 		}
-		userRepo.persist(user);
+		if (created) {
+			userRepo.persist(user);
+		}
+		countWrite("user", created || changed);
 		return Response.created(URI.create(".")).build();
 	}
 
 	/**
-	 * Updates those devices that are present in both the entity and the DTO. No devices are added or removed.
+	 * Updates those devices that are present in both the entity and the DTO, if any of their properties differ. No devices are added or removed.
 	 *
 	 * @param userEntity The persistent entity
 	 * @param userDto    The DTO
 	 */
 	private void updateDevices(User userEntity, UserDto userDto) {
-		if (userDto.getDevices() != null) {
-			var devices = userEntity.devices.stream().collect(Collectors.toUnmodifiableMap(Device::getId, Function.identity()));
-			var updatedDevices = userDto.getDevices().stream()
-					.filter(d -> devices.containsKey(d.id())) // only look at DTOs for which we find a matching existing entity
-					.map(dto -> {
-						var device = devices.get(dto.id());
-						device.setType(dto.type());
-						device.setName(dto.name());
-						device.setPublickey(dto.publicKey());
-						device.setUserPrivateKeys(dto.userPrivateKeys());
-						return device;
-					});
-			deviceRepo.persist(updatedDevices);
+		if (userDto.getDevices() == null || userDto.getDevices().isEmpty()) {
+			return; // don't even load the devices
+		}
+		var devices = userEntity.devices.stream().collect(Collectors.toUnmodifiableMap(Device::getId, Function.identity()));
+		userDto.getDevices().stream()
+				.filter(d -> devices.containsKey(d.id())) // only look at DTOs for which we find a matching existing entity
+				.forEach(dto -> {
+					var device = devices.get(dto.id());
+					boolean changed = updateIfChanged(device.getType(), dto.type(), device::setType);
+					changed |= updateIfChanged(device.getName(), dto.name(), device::setName);
+					changed |= updateIfChanged(device.getPublickey(), dto.publicKey(), device::setPublickey);
+					changed |= updateIfChanged(device.getUserPrivateKeys(), dto.userPrivateKeys(), device::setUserPrivateKeys);
+					countWrite("device", changed);
+				});
+	}
+
+	/**
+	 * Sets a property of a managed entity only if its value differs, so that unchanged entities are not flushed.
+	 *
+	 * @param currentValue The current value
+	 * @param newValue     The new value
+	 * @param setter       The setter of the property
+	 * @return <code>true</code> if the value has been changed
+	 */
+	private static <T> boolean updateIfChanged(T currentValue, T newValue, Consumer<T> setter) {
+		if (Objects.equals(currentValue, newValue)) {
+			return false;
 		}
+		setter.accept(newValue);
+		return true;
+	}
+
+	private void countWrite(String entity, boolean written) {
+		meterRegistry.counter("hub.users.me.writes", "entity", entity, "result", written ? "written" : "skipped").increment();
 	}
 
 	@POST
@@ -134,36 +177,51 @@ public class UsersResource {
 	@Operation(summary = "adds/updates user-specific vault keys", description = "Stores one or more vaultid-vaultkey-tuples for the currently logged-in user, as defined in the request body ({vault1: token1, vault2: token2, ...}).")
 	@APIResponse(responseCode = "200", description = "all keys stored")
 	public Response updateMyAccessTokens(@NotNull Map<UUID, String> tokens) {
-		var user = userRepo.findById(jwt.getSubject());
-		for (var entry : tokens.entrySet()) {
-			var vault = vaultRepo.findById(entry.getKey());
-			if (vault == null) {
-				continue; // skip
-			}
-			var token = accessTokenRepo.findById(new AccessToken.AccessId(user.getId(), vault.getId()));
-			if (token == null) {
-				token = new AccessToken();
-				token.setVault(vault);
-				token.setUser(user);
-			}
-			token.setVaultKey(entry.getValue());
-			accessTokenRepo.persist(token);
-			eventLogger.logVaultAccessGranted(user.getId(), vault.getId(), user.getId());
+		var userId = jwt.getSubject();
+		if (tokens.isEmpty()) {
+			return Response.ok().build();
 		}
+		var existingVaultIds = vaultRepo.findIdsInList(tokens.keySet()).collect(Collectors.toSet());
+		var existingVaultTokens = tokens.entrySet().stream()
+				.filter(entry -> existingVaultIds.contains(entry.getKey())) // skip non-existing vaults
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+		accessTokenRepo.upsertAll(userId, existingVaultTokens);
+		eventLogger.logVaultAccessesGranted(userId, existingVaultTokens.keySet(), userId);
 		return Response.ok().build();
 	}
 
 	@GET
 	@Path("/me")
 	@RolesAllowed("user")
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
-	@NoCache
 	@Transactional
-	@Operation(summary = "get the logged-in user")
+	@Operation(summary = "get the logged-in user", description = "Supports conditional requests via If-None-Match, unless withLastAccess is set.")
 	@Parameter(name = "withLastAccess", in = ParameterIn.QUERY, description = "adds last access values to the devices (if present)")
-	@APIResponse(responseCode = "200", description = "returns the current user")
+	@APIResponse(responseCode = "200", description = "returns the current user", content = @Content(schema = @Schema(implementation = UserDto.class)))
+	@APIResponse(responseCode = "304", description = "user unchanged since the given ETag")
 	@APIResponse(responseCode = "404", description = "no user matching the subject of the JWT passed as Bearer Token")
-	public UserDto getMe(@QueryParam("withDevices") boolean withDevices, @QueryParam("withLastAccess") boolean withLastAccess) {
+	public Response getMe(@QueryParam("withDevices") boolean withDevices, @QueryParam("withLastAccess") boolean withLastAccess, @Context Request request) {
+		if (withLastAccess) {
+			// last access is derived from the audit log, which is not covered by any sync version, so this must not be stored at all (see @DefaultCacheControl)
+			return Response.ok(loadMe(withDevices, true)).build();
+		}
+		var syncVersion = userRepo.syncVersion(jwt.getSubject());
+		if (syncVersion.isEmpty()) {
+			throw new NotFoundException();
+		}
+		if (withDevices) {
+			syncVersion = syncVersion.plus(deviceRepo.syncVersionOfOwner(jwt.getSubject()));
+		}
+		var etag = ConditionalGet.etag(syncVersion, withDevices);
+		var notModified = ConditionalGet.notModified(request, etag);
+		if (notModified != null) {
+			return notModified;
+		}
+		return ConditionalGet.ok(loadMe(withDevices, false), etag);
+	}
+
+	private UserDto loadMe(boolean withDevices, boolean withLastAccess) {
 		User user = userRepo.findById(jwt.getSubject());
 		Set<DeviceResource.DeviceDto> deviceDtos;
 		if (withLastAccess) {
@@ -181,6 +239,45 @@ public class UsersResource {
 		return new UserDto(user.getId(), user.getName(), user.getPictureUrl(), user.getEmail(), user.getLanguage(), deviceDtos, user.getEcdhPublicKey(), user.getEcdsaPublicKey(), user.getPrivateKeys(), user.getSetupCode());
 	}
 
+	@GET
+	@Path("/me/changes")
+	@RolesAllowed("user")
+	@Produces(MediaType.APPLICATION_JSON)
+	@NoCache
+	@Transactional
+	@Operation(summary = "get changes of the logged-in user", description = "Lists the logged-in user, accessible vaults and own devices that have changed since the state identified by the given sync token. Vaults and devices missing in vaultIds and deviceIds are no longer accessible. Without a sync token, the full state is returned.")
+	@Parameter(name = "since", in = ParameterIn.QUERY, description = "the syncToken of a previous response")
+	@APIResponse(responseCode = "200", description = "user (if changed) and changed vaults and devices")
+	@APIResponse(responseCode = "304", description = "nothing changed since the given sync token")
+	@APIResponse(responseCode = "400", description = "malformed sync token")
+	@APIResponse(responseCode = "404", description = "no user matching the subject of the JWT passed as Bearer Token")
+	public Response getMyChanges(@Nullable @QueryParam("since") String since) {
+		var userId = jwt.getSubject();
+		var previous = since == null ? null : SyncToken.parse(since);
+		var changedSince = previous == null ? 0L : previous.version();
+
+		// determine the version first, so changes committed while collecting them are listed again next time:
+		var version = userRepo.currentSyncVersion();
+		var vaultIds = vaultRepo.findAccessibleIdsByUser(userId).sorted().toList();
+		var deviceIds = deviceRepo.findIdsByOwner(userId).sorted().toList();
+		var vaults = vaultRepo.findAccessibleByUserChangedSince(userId, changedSince).map(VaultResource.VaultDto::fromEntity).toList();
+		var devices = deviceRepo.findByOwnerChangedSince(userId, changedSince).map(DeviceResource.DeviceDto::fromEntity).toList();
+		var userChanged = userRepo.isChangedSince(userId, changedSince);
+		var syncToken = new SyncToken(version, SyncToken.digest(vaultIds, deviceIds));
+
+		if (previous != null && previous.digest().equals(syncToken.digest()) && !userChanged && vaults.isEmpty() && devices.isEmpty()) {
+			return Response.notModified().build();
+		}
+		UserDto userDto = null;
+		if (userChanged) {
+			var user = userRepo.findById(userId);
+			userDto = new UserDto(user.getId(), user.getName(), user.getPictureUrl(), user.getEmail(), user.getLanguage(), Set.of(), user.getEcdhPublicKey(), user.getEcdsaPublicKey(), user.getPrivateKeys(), user.getSetupCode());
+		} else if (previous == null) {
+			throw new NotFoundException("No such user.");
+		}
+		return Response.ok(new ChangesDto(syncToken.toString(), userDto, vaults, vaultIds, devices, deviceIds)).build();
+	}
+
 	/**
 	 * @deprecated to be removed in <a href="https://github.com/cryptomator/hub/issues/333">#333</a>
 	 */
@@ -228,10 +325,18 @@ public class UsersResource {
 	@GET
 	@Path("/")
 	@RolesAllowed("user")
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
 	@Operation(summary = "list all users")
-	public List<UserDto> getAll() {
-		return userRepo.findAll().stream().map(UserDto::justPublicInfo).toList();
+	@APIResponse(responseCode = "200", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = UserDto.class)))
+	@APIResponse(responseCode = "304", description = "users unchanged since the given ETag")
+	public Response getAll(@Context Request request) {
+		var etag = ConditionalGet.etag(userRepo.syncVersionOfAll());
+		var notModified = ConditionalGet.notModified(request, etag);
+		if (notModified != null) {
+			return notModified;
+		}
+		return ConditionalGet.ok(userRepo.findAll().stream().map(UserDto::justPublicInfo).toList(), etag);
 	}
 
 	@PUT
@@ -284,6 +389,51 @@ public class UsersResource {
 		return effectiveWotRepo.findTrusted(trustingUserId).stream().map(TrustedUserDto::fromEntity).toList();
 	}
 
+	/**
+	 * @param syncToken The token to pass when requesting the next changes
+	 * @param user      The user's details without devices, or <code>null</code> if unchanged
+	 * @param vaults    Accessible vaults that have been added or changed
+	 * @param vaultIds  All accessible vaults
+	 * @param devices   Devices that have been added or changed
+	 * @param deviceIds All devices
+	 */
+	public record ChangesDto(@JsonProperty("syncToken") String syncToken,
+							 @JsonProperty("user") @Nullable UserDto user,
+							 @JsonProperty("vaults") List<VaultResource.VaultDto> vaults,
+							 @JsonProperty("vaultIds") List<UUID> vaultIds,
+							 @JsonProperty("devices") List<DeviceResource.DeviceDto> devices,
+							 @JsonProperty("deviceIds") List<String> deviceIds) {
+	}
+
+	/**
+	 * Identifies the state known to a client.
+	 *
+	 * @param version Changes with at least this sync version have not been seen by the client
+	 * @param digest  Digest of the vault and device IDs known to the client, revealing removals
+	 */
+	//visible for testing
+	record SyncToken(long version, String digest) {
+
+		static SyncToken parse(String token) throws BadRequestException {
+			var separator = token.indexOf('.');
+			try {
+				return new SyncToken(Long.parseLong(token, 0, separator, 10), token.substring(separator + 1));
+			} catch (NumberFormatException | IndexOutOfBoundsException e) {
+				throw new BadRequestException("Malformed sync token.");
+			}
+		}
+
+		static String digest(List<UUID> vaultIds, List<String> deviceIds) {
+			var ids = Stream.of(vaultIds.stream(), Stream.of(""), deviceIds.stream()).flatMap(Function.identity()); // empty value separates vault from device ids
+			return Fingerprint.ofValues(ids.toArray());
+		}
+
+		@Override
+		public String toString() {
+			return version + "." + digest;
+		}
+	}
+
 	public record TrustedUserDto(@JsonProperty("trustedUserId") String trustedUserId, @JsonProperty("signatureChain") List<String> signatureChain) {
 
 		public static TrustedUserDto fromEntity(EffectiveWot entity) {
@@ -5,6 +5,7 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.security.identity.SecurityIdentity;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.vertx.core.http.HttpServerRequest;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.security.RolesAllowed;
@@ -15,6 +16,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.Consumes;
@@ -32,6 +34,7 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import org.cryptomator.hub.entities.AccessToken;
 import org.cryptomator.hub.entities.Authority;
@@ -44,8 +47,10 @@ import org.cryptomator.hub.entities.VaultAccess;
 import org.cryptomator.hub.entities.events.EventLogger;
 import org.cryptomator.hub.entities.events.VaultKeyRetrievedEvent;
 import org.cryptomator.hub.filters.ActiveLicense;
+import org.cryptomator.hub.filters.DefaultCacheControl;
 import org.cryptomator.hub.filters.VaultRole;
 import org.cryptomator.hub.license.LicenseHolder;
+import org.cryptomator.hub.license.SeatCounter;
 import org.cryptomator.hub.validation.NoHtmlOrScriptChars;
 import org.cryptomator.hub.validation.OnlyBase64Chars;
 import org.cryptomator.hub.validation.ValidId;
@@ -53,6 +58,7 @@ import org.cryptomator.hub.validation.ValidJWS;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
@@ -61,21 +67,32 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import java.net.URI;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+@RunOnVirtualThread
 @Path("/vaults")
 public class VaultResource {
 
+	private static final int MAX_BATCH_UNLOCK_SIZE = 1000;
+	private static final int MAX_BATCH_MEMBER_SIZE = 1000;
+
 	@Inject
 	EventLogger eventLogger;
 
 	@Inject
 	AccessToken.Repository accessTokenRepo;
 	@Inject
+	Authority.Repository authorityRepo;
+	@Inject
 	Group.Repository groupRepo;
 	@Inject
 	User.Repository userRepo;
@@ -101,6 +118,9 @@ public class VaultResource {
 	@Inject
 	LicenseHolder license;
 
+	@Inject
+	SeatCounter seatCounter;
+
 	@Context
 	HttpServerRequest request;
 
@@ -147,16 +167,24 @@ public class VaultResource {
 	@RolesAllowed("user")
 	@VaultRole(VaultAccess.Role.OWNER) // may throw 403
 	@Transactional
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
 	@Operation(summary = "list vault members", description = "list all users or groups that this vault has been shared with directly (not inherited via group membership)")
-	@APIResponse(responseCode = "200")
+	@APIResponse(responseCode = "200", content = @Content(schema = @Schema(type = SchemaType.ARRAY, implementation = MemberDto.class)))
+	@APIResponse(responseCode = "304", description = "members unchanged since the given ETag")
 	@APIResponse(responseCode = "403", description = "not a vault owner")
-	public List<MemberDto> getDirectMembers(@PathParam("vaultId") UUID vaultId) {
-		return vaultAccessRepo.forVault(vaultId).map(access -> switch (access.getAuthority()) {
+	public Response getDirectMembers(@PathParam("vaultId") UUID vaultId, @Context Request conditionalRequest) {
+		var etag = ConditionalGet.etag(vaultAccessRepo.syncVersionOfMembers(vaultId));
+		var notModified = ConditionalGet.notModified(conditionalRequest, etag);
+		if (notModified != null) {
+			return notModified;
+		}
+		var members = vaultAccessRepo.forVault(vaultId).map(access -> switch (access.getAuthority()) {
 			case User u -> MemberDto.fromEntity(u, access.getRole());
 			case Group g -> MemberDto.fromEntity(g, access.getRole());
 			default -> throw new IllegalStateException();
 		}).toList();
+		return ConditionalGet.ok(members, etag);
 	}
 
 	@PUT
@@ -176,6 +204,7 @@ public class VaultResource {
 	public Response addUser(@PathParam("vaultId") UUID vaultId, @PathParam("userId") @ValidId String userId, @QueryParam("role") @DefaultValue("MEMBER") VaultAccess.Role role) {
 		var vault = vaultRepo.findById(vaultId); // should always be found, since @VaultRole filter would have triggered
 		var user = userRepo.findByIdOptional(userId).orElseThrow(NotFoundException::new);
+		effectiveVaultAccessRepo.lockSeats(); // held until commit, so concurrent requests can't take the same free seat
 		var usedSeats = effectiveVaultAccessRepo.countSeatOccupyingUsers();
 		if (usedSeats < license.getSeats() // free seats available
 				|| effectiveVaultAccessRepo.isUserOccupyingSeat(userId)) { // or user already sitting
@@ -203,6 +232,7 @@ public class VaultResource {
 		var vault = vaultRepo.findById(vaultId); // should always be found, since @VaultRole filter would have triggered
 		var group = groupRepo.findByIdOptional(groupId).orElseThrow(NotFoundException::new);
 
+		effectiveVaultAccessRepo.lockSeats(); // held until commit, so concurrent requests can't take the same free seat
 		//usersInGroup - usersInGroupAndPartOfAtLeastOneVault + usersOfAtLeastOneVault
 		if (userRepo.countEffectiveGroupUsers(groupId) - effectiveVaultAccessRepo.countSeatOccupyingUsersOfGroup(groupId) + effectiveVaultAccessRepo.countSeatOccupyingUsers() > license.getSeats()) {
 			throw new PaymentRequiredException("Adding this group would exceed available license seats.");
@@ -211,6 +241,58 @@ public class VaultResource {
 		return addAuthority(vault, group, role);
 	}
 
+	@POST
+	@Path("/{vaultId}/members")
+	@RolesAllowed("user")
+	@VaultRole(VaultAccess.Role.OWNER) // may throw 403
+	@Transactional
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@Operation(summary = "adds multiple users and groups to this vault or updates their roles", description = "adds the given authorities with the given roles ({authority1: role1, authority2: role2, ...}) or updates their roles, if already a member. Each result carries the status code that PUT /vaults/{vaultId}/users/{userId} or PUT /vaults/{vaultId}/groups/{groupId} would respond with.")
+	@APIResponse(responseCode = "200", description = "results for each requested authority. Possible statuses are 200 (role updated), 201 (added) and 404 (unknown authority)")
+	@APIResponse(responseCode = "400", description = "no or too many authorities")
+	@APIResponse(responseCode = "402", description = "license is expired or licensed seats would be exceeded after the operation")
+	@APIResponse(responseCode = "403", description = "not a vault owner")
+	@ActiveLicense
+	public Response addMembers(@PathParam("vaultId") UUID vaultId, @NotEmpty @Size(max = MAX_BATCH_MEMBER_SIZE) Map<@ValidId String, @NotNull VaultAccess.Role> roles) {
+		var vault = vaultRepo.findById(vaultId); // should always be found, since @VaultRole filter would have triggered
+		var authorities = authorityRepo.findAllInList(List.copyOf(roles.keySet())).collect(Collectors.toMap(Authority::getId, Function.identity()));
+
+		effectiveVaultAccessRepo.lockSeats(); // held until commit, so concurrent requests can't take the same free seat
+		// seats required by users not sitting yet, whether added directly or via a group:
+		var additionalSeats = effectiveVaultAccessRepo.countUsersWithoutSeat(authorities.keySet());
+		if (additionalSeats > 0 && effectiveVaultAccessRepo.countSeatOccupyingUsers() + additionalSeats > license.getSeats()) {
+			throw new PaymentRequiredException("Adding these members would exceed available license seats.");
+		}
+
+		var existingAccess = authorities.isEmpty() ? Map.<String, VaultAccess>of() : vaultAccessRepo.forVaultAndAuthorities(vaultId, authorities.keySet()).collect(Collectors.toMap(access -> access.getId().getAuthorityId(), Function.identity()));
+		var results = new ArrayList<MemberResultDto>(roles.size());
+		var added = new LinkedHashMap<String, VaultAccess.Role>();
+		var updated = new LinkedHashMap<String, VaultAccess.Role>();
+		for (var entry : roles.entrySet()) {
+			var authorityId = entry.getKey();
+			var role = entry.getValue();
+			var authority = authorities.get(authorityId);
+			if (authority == null) {
+				results.add(new MemberResultDto(authorityId, Response.Status.NOT_FOUND.getStatusCode()));
+			} else if (existingAccess.containsKey(authorityId)) {
+				existingAccess.get(authorityId).setRole(role); // flushed as JDBC batch
+				updated.put(authorityId, role);
+				results.add(new MemberResultDto(authorityId, Response.Status.OK.getStatusCode()));
+			} else {
+				var access = new VaultAccess();
+				access.setVault(vault);
+				access.setAuthority(authority);
+				access.setRole(role);
+				vaultAccessRepo.persist(access); // flushed as JDBC batch
+				added.put(authorityId, role);
+				results.add(new MemberResultDto(authorityId, Response.Status.CREATED.getStatusCode()));
+			}
+		}
+		eventLogger.logVaultMembersChanged(jwt.getSubject(), vaultId, added, updated);
+		return Response.ok(results).build();
+	}
+
 	private Response addAuthority(Vault vault, Authority authority, VaultAccess.Role role) {
 		var id = new VaultAccess.Id(vault.getId(), authority.getId());
 		var existingAccess = vaultAccessRepo.findByIdOptional(id);
@@ -283,7 +365,7 @@ public class VaultResource {
 			throw new GoneException("Vault is archived.");
 		}
 
-		var accessTokenSeats = effectiveVaultAccessRepo.countSeatOccupyingUsersWithAccessToken();
+		var accessTokenSeats = seatCounter.countSeatOccupyingUsersWithAccessToken();
 		if (accessTokenSeats > license.getSeats()) {
 			throw new PaymentRequiredException("Number of effective vault users exceeds available license seats");
 		}
@@ -292,7 +374,7 @@ public class VaultResource {
 			var access = legacyAccessTokenRepo.unlock(vaultId, deviceId, jwt.getSubject());
 			eventLogger.logVaultKeyRetrieved(jwt.getSubject(), vaultId, VaultKeyRetrievedEvent.Result.SUCCESS, ipAddress, deviceId);
 			var subscriptionStateHeaderName = "Hub-Subscription-State";
-			var subscriptionStateHeaderValue = license.isSet() ? "ACTIVE" : "INACTIVE"; // license expiration is not checked here, because it is checked in the ActiveLicense filter
+			var subscriptionStateHeaderValue = license.getSubscriptionState(); // license expiration is not checked here, because it is checked in the ActiveLicense filter
 			return Response.ok(access.getJwe()).header(subscriptionStateHeaderName, subscriptionStateHeaderValue).build();
 		} catch (NoResultException e) {
 			eventLogger.logVaultKeyRetrieved(jwt.getSubject(), vaultId, VaultKeyRetrievedEvent.Result.UNAUTHORIZED, ipAddress, deviceId);
@@ -314,36 +396,82 @@ public class VaultResource {
 	@APIResponse(responseCode = "449", description = "User account not yet initialized. Retry after setting up user")
 	@ActiveLicense // may throw 402
 	public Response unlock(@PathParam("vaultId") UUID vaultId, @QueryParam("evenIfArchived") @DefaultValue("false") boolean ignoreArchived) {
-		var vault = vaultRepo.findById(vaultId); // should always be found, since @VaultRole filter would have triggered
-		if (vault.isArchived() && !ignoreArchived) {
+		var unlockInfo = accessTokenRepo.unlockInfo(vaultId, jwt.getSubject()); // single query to keep the connection for as short as possible during unlock storms
+		if (unlockInfo == null) {
+			throw new NotFoundException("No such vault."); // should not happen, since @VaultRole filter would have triggered
+		}
+		if (unlockInfo.archived() && !ignoreArchived) {
 			throw new GoneException("Vault is archived.");
 		}
 
-		var accessTokenSeats = effectiveVaultAccessRepo.countSeatOccupyingUsersWithAccessToken();
+		var accessTokenSeats = seatCounter.countSeatOccupyingUsersWithAccessToken();
 		if (accessTokenSeats > license.getSeats()) {
 			throw new PaymentRequiredException("Number of effective vault users exceeds available license seats");
 		}
 
-		var user = userRepo.findById(jwt.getSubject());
-		if (user.getEcdhPublicKey() == null) {
+		if (!unlockInfo.userInitialized()) {
 			throw new ActionRequiredException("User account not initialized.");
 		}
 		var ipAddress = request.remoteAddress().hostAddress();
 		var deviceId = request.getHeader("Hub-Device-ID");
-		var access = accessTokenRepo.unlock(vaultId, jwt.getSubject());
-		if (access != null) {
+		if (unlockInfo.vaultKey() != null) {
 			eventLogger.logVaultKeyRetrieved(jwt.getSubject(), vaultId, VaultKeyRetrievedEvent.Result.SUCCESS, ipAddress, deviceId);
 			var subscriptionStateHeaderName = "Hub-Subscription-State";
-			var subscriptionStateHeaderValue = license.isSet() ? "ACTIVE" : "INACTIVE"; // license expiration is not checked here, because it is checked in the ActiveLicense filter
-			return Response.ok(access.getVaultKey(), MediaType.TEXT_PLAIN_TYPE).header(subscriptionStateHeaderName, subscriptionStateHeaderValue).build();
-		} else if (vaultRepo.findById(vaultId) == null) {
-			throw new NotFoundException("No such vault.");
+			var subscriptionStateHeaderValue = license.getSubscriptionState(); // license expiration is not checked here, because it is checked in the ActiveLicense filter
+			return Response.ok(unlockInfo.vaultKey(), MediaType.TEXT_PLAIN_TYPE).header(subscriptionStateHeaderName, subscriptionStateHeaderValue).build();
 		} else {
 			eventLogger.logVaultKeyRetrieved(jwt.getSubject(), vaultId, VaultKeyRetrievedEvent.Result.UNAUTHORIZED, ipAddress, deviceId);
 			throw new ForbiddenException("Access to this vault not granted.");
 		}
 	}
 
+	@POST
+	@Path("/access-tokens/batch")
+	@RolesAllowed("user")
+	@Transactional
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@Operation(summary = "get the user-specific vault keys of multiple vaults", description = "retrieves jwes containing the vault keys of the given vaults, encrypted for the current user. Each result carries the status code that GET /vaults/{vaultId}/access-token would respond with.")
+	@APIResponse(responseCode = "200", description = "results for each requested vault, containing the vault key if the status is 200. Possible statuses are 200, 403 (not a vault member), 404 (unknown vault) and 410 (vault is archived, unless evenIfArchived is set)")
+	@APIResponse(responseCode = "400", description = "no or too many vault ids")
+	@APIResponse(responseCode = "402", description = "license expired or number of effective vault users that have a token exceeds available license seats")
+	@APIResponse(responseCode = "449", description = "User account not yet initialized. Retry after setting up user")
+	@ActiveLicense // may throw 402
+	public Response unlockBatch(@NotEmpty @Size(max = MAX_BATCH_UNLOCK_SIZE) List<UUID> vaultIds, @QueryParam("evenIfArchived") @DefaultValue("false") boolean ignoreArchived) {
+		var unlockInfos = accessTokenRepo.unlockInfos(vaultIds, jwt.getSubject()); // single query for all vaults
+
+		var accessTokenSeats = seatCounter.countSeatOccupyingUsersWithAccessToken();
+		if (accessTokenSeats > license.getSeats()) {
+			throw new PaymentRequiredException("Number of effective vault users exceeds available license seats");
+		}
+
+		if (unlockInfos.values().stream().anyMatch(info -> !info.userInitialized())) {
+			throw new ActionRequiredException("User account not initialized.");
+		}
+		var results = new ArrayList<VaultKeyDto>(vaultIds.size());
+		var retrievals = new LinkedHashMap<UUID, VaultKeyRetrievedEvent.Result>();
+		for (var vaultId : new LinkedHashSet<>(vaultIds)) {
+			var unlockInfo = unlockInfos.get(vaultId);
+			if (unlockInfo == null) {
+				results.add(new VaultKeyDto(vaultId, Response.Status.NOT_FOUND.getStatusCode(), null));
+			} else if (unlockInfo.archived() && !ignoreArchived) {
+				results.add(new VaultKeyDto(vaultId, Response.Status.GONE.getStatusCode(), null));
+			} else if (unlockInfo.vaultKey() != null) {
+				results.add(new VaultKeyDto(vaultId, Response.Status.OK.getStatusCode(), unlockInfo.vaultKey()));
+				retrievals.put(vaultId, VaultKeyRetrievedEvent.Result.SUCCESS);
+			} else {
+				results.add(new VaultKeyDto(vaultId, Response.Status.FORBIDDEN.getStatusCode(), null));
+				retrievals.put(vaultId, VaultKeyRetrievedEvent.Result.UNAUTHORIZED);
+			}
+		}
+		var ipAddress = request.remoteAddress().hostAddress();
+		var deviceId = request.getHeader("Hub-Device-ID");
+		eventLogger.logVaultKeysRetrieved(jwt.getSubject(), retrievals, ipAddress, deviceId);
+		var subscriptionStateHeaderName = "Hub-Subscription-State";
+		var subscriptionStateHeaderValue = license.getSubscriptionState(); // license expiration is not checked here, because it is checked in the ActiveLicense filter
+		return Response.ok(results).header(subscriptionStateHeaderName, subscriptionStateHeaderValue).build();
+	}
+
 	@POST
 	@Path("/{vaultId}/access-tokens")
 	@RolesAllowed("user")
@@ -359,6 +487,7 @@ public class VaultResource {
 		var vault = vaultRepo.findById(vaultId); // should always be found, since @VaultRole filter would have triggered
 
 		// check number of available seats
+		effectiveVaultAccessRepo.lockSeats(); // held until commit, so concurrent requests can't take the same free seat
 		long occupiedSeats = effectiveVaultAccessRepo.countSeatOccupyingUsers();
 		long usersWithoutSeat = tokens.size() - effectiveVaultAccessRepo.countSeatsOccupiedByUsers(tokens.keySet().stream().toList());
 
@@ -385,17 +514,27 @@ public class VaultResource {
 	@Path("/{vaultId}")
 	@RolesAllowed("user")
 	// @VaultRole(VaultAccess.Role.MEMBER) // TODO: members and admin may do this...
+	@DefaultCacheControl
 	@Produces(MediaType.APPLICATION_JSON)
 	@Transactional
 	@Operation(summary = "gets a vault")
-	@APIResponse(responseCode = "200")
+	@APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = VaultDto.class)))
+	@APIResponse(responseCode = "304", description = "vault unchanged since the given ETag")
 	@APIResponse(responseCode = "403", description = "requesting user is neither a vault member nor has the admin role")
-	public VaultDto get(@PathParam("vaultId") UUID vaultId) {
-		Vault vault = vaultRepo.findByIdOptional(vaultId).orElseThrow(NotFoundException::new);
-		if (vault.getEffectiveMembers().stream().noneMatch(u -> u.getId().equals(jwt.getSubject())) && !identity.getRoles().contains("admin")) {
+	public Response get(@PathParam("vaultId") UUID vaultId, @Context Request conditionalRequest) {
+		var syncVersion = vaultRepo.syncVersion(vaultId);
+		if (syncVersion.isEmpty()) {
+			throw new NotFoundException();
+		}
+		if (effectiveVaultAccessRepo.listRoles(vaultId, jwt.getSubject()).isEmpty() && !identity.getRoles().contains("admin")) {
 			throw new ForbiddenException("Requesting user is not a member of the vault");
 		}
-		return VaultDto.fromEntity(vault);
+		var etag = ConditionalGet.etag(syncVersion);
+		var notModified = ConditionalGet.notModified(conditionalRequest, etag);
+		if (notModified != null) {
+			return notModified;
+		}
+		return ConditionalGet.ok(VaultDto.fromEntity(vaultRepo.findById(vaultId)), etag);
 	}
 
 	@PUT
@@ -419,6 +558,7 @@ public class VaultResource {
 			vault = existingVault.get();
 		} else {
 			//if license is exceeded block vault creation, independent if the user is already sitting
+			effectiveVaultAccessRepo.lockSeats();
 			var usedSeats = effectiveVaultAccessRepo.countSeatOccupyingUsers();
 			if (usedSeats > license.getSeats()) {
 				throw new PaymentRequiredException("Number of effective vault users exceeds available license seats");
@@ -507,6 +647,12 @@ public class VaultResource {
 	}
 
 
+	public record MemberResultDto(@JsonProperty("authorityId") String authorityId, @JsonProperty("status") int status) {
+	}
+
+	public record VaultKeyDto(@JsonProperty("vaultId") UUID vaultId, @JsonProperty("status") int status, @JsonProperty("accessToken") @Nullable String accessToken) {
+	}
+
 	public record VaultDto(@JsonProperty("id") UUID id,
 						   @JsonProperty("name") @NoHtmlOrScriptChars @NotBlank String name,
 						   @JsonProperty("description") @NoHtmlOrScriptChars String description,
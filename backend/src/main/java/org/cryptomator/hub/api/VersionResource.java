@@ -1,16 +1,18 @@
 package org.cryptomator.hub.api;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import org.cryptomator.hub.keycloak.KeycloakVersionCache;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
-import org.keycloak.admin.client.Keycloak;
 
+@RunOnVirtualThread
 @Path("/version")
 public class VersionResource {
 
@@ -18,19 +20,14 @@ public class VersionResource {
 	String hubVersion;
 
 	@Inject
-	Keycloak keycloak;
+	KeycloakVersionCache keycloakVersionCache;
 
 	@GET
 	@Produces(MediaType.APPLICATION_JSON)
 	@Operation(summary = "get version of hub and keycloak")
 	@APIResponse(responseCode = "200")
 	public VersionDto getVersion() {
-		String keycloakVersion = null;
-		var keycloakSystemInfo = keycloak.serverInfo().getInfo().getSystemInfo();
-		if (keycloakSystemInfo != null) {
-			keycloakVersion = keycloakSystemInfo.getVersion();
-		}
-		return new VersionDto(hubVersion, keycloakVersion);
+		return new VersionDto(hubVersion, keycloakVersionCache.getVersion());
 	}
 
 	public record VersionDto(@JsonProperty("hubVersion") String hubVersion, @JsonProperty("keycloakVersion") String keycloakVersion) {
@@ -0,0 +1,61 @@
+package org.cryptomator.hub.cluster;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Announces persisted {@link org.cryptomator.hub.entities.events.AuditEvent AuditEvents} to all other Hub instances sharing the same database,
+ * so that each instance can push them to its own audit event stream subscribers.
+ * <p>
+ * Each instance fires an {@link AuditEventsCommitted} event for events committed by other instances.
+ */
+@ApplicationScoped
+public class AuditEventNotifier {
+
+	private static final Logger LOG = Logger.getLogger(AuditEventNotifier.class);
+	static final String CHANNEL = "hub_audit_events";
+	static final int MAX_IDS_PER_NOTIFICATION = 300; // the payload of a notification is limited to 8000 bytes
+
+	@Inject
+	ClusterNotifications clusterNotifications;
+
+	@Inject
+	Event<AuditEventsCommitted> auditEventsCommitted;
+
+	/**
+	 * Notifies all other instances about the given audit events once they are committed. Must be called within the transaction persisting the events.
+	 *
+	 * @param ids The ids of the persisted events
+	 */
+	public void publish(Collection<Long> ids) {
+		var idList = List.copyOf(ids);
+		for (int offset = 0; offset < idList.size(); offset += MAX_IDS_PER_NOTIFICATION) {
+			var chunk = idList.subList(offset, Math.min(offset + MAX_IDS_PER_NOTIFICATION, idList.size()));
+			clusterNotifications.publish(CHANNEL, chunk.stream().map(String::valueOf).collect(Collectors.joining(",")));
+		}
+	}
+
+	void onNotification(@Observes ClusterNotification notification) {
+		if (!CHANNEL.equals(notification.channel())) {
+			return;
+		}
+		if (notification.data() == null) {
+			auditEventsCommitted.fire(AuditEventsCommitted.MISSED);
+			return;
+		}
+		try {
+			var ids = Arrays.stream(notification.data().split(",")).map(Long::valueOf).toList();
+			auditEventsCommitted.fire(new AuditEventsCommitted(ids));
+		} catch (NumberFormatException e) {
+			LOG.warnv("Ignoring malformed audit event notification: {0}", notification.data());
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package org.cryptomator.hub.cluster;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * CDI event fired when {@link org.cryptomator.hub.entities.events.AuditEvent AuditEvents} have been committed by another Hub instance.
+ * <p>
+ * Observers should load the events from the database.
+ *
+ * @param ids The ids of the committed events, or <code>null</code> if notifications may have been missed, so that any events may have been committed
+ */
+public record AuditEventsCommitted(@Nullable List<Long> ids) {
+
+	static final AuditEventsCommitted MISSED = new AuditEventsCommitted(null);
+
+}
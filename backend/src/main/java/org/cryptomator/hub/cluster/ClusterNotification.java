@@ -0,0 +1,12 @@
+package org.cryptomator.hub.cluster;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * CDI event fired when another Hub instance {@link ClusterNotifications#publish(String, String) published} a notification.
+ *
+ * @param channel The channel
+ * @param data    The published data, or <code>null</code> if notifications on this channel may have been missed while reconnecting
+ */
+record ClusterNotification(String channel, @Nullable String data) {
+}
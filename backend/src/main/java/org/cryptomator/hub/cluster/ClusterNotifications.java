@@ -0,0 +1,140 @@
+package org.cryptomator.hub.cluster;
+
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Exchanges notifications between multiple Hub instances sharing the same database.
+ * <p>
+ * Notifications are sent using Postgres' {@code NOTIFY}, which is delivered to all instances when the transaction commits.
+ * Each instance {@code LISTEN}s on a dedicated connection and fires a {@link ClusterNotification} event for notifications from other instances.
+ * <p>
+ * The listening connection is held for the lifetime of the application. It is opened directly via JDBC instead of being taken from the
+ * connection pool, so that the pool remains fully available to requests.
+ */
+@Startup
+@ApplicationScoped
+public class ClusterNotifications {
+
+	private static final Logger LOG = Logger.getLogger(ClusterNotifications.class);
+	private static final List<String> CHANNELS = List.of(SettingsChangeNotifier.CHANNEL, AuditEventNotifier.CHANNEL);
+	private static final Pattern SAFE_DATA = Pattern.compile("[\\w,-]*");
+	private static final int RECEIVE_TIMEOUT_MILLIS = 1000;
+	private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+	@ConfigProperty(name = "quarkus.datasource.jdbc.url")
+	String jdbcUrl;
+
+	@ConfigProperty(name = "quarkus.datasource.username")
+	Optional<String> username;
+
+	@ConfigProperty(name = "quarkus.datasource.password")
+	Optional<String> password;
+
+	@Inject
+	EntityManager em;
+
+	@Inject
+	Event<ClusterNotification> notifications;
+
+	private final String instanceId = UUID.randomUUID().toString();
+	private volatile boolean running;
+	private Thread listener;
+
+	@PostConstruct
+	void start() {
+		running = true;
+		listener = Thread.ofPlatform().daemon().name("cluster-notification-listener").start(this::listen);
+	}
+
+	@PreDestroy
+	void stop() {
+		running = false;
+		listener.interrupt();
+	}
+
+	/**
+	 * Notifies all other instances. Must be called within the transaction whose commit the notification announces.
+	 *
+	 * @param channel The channel, which must be listened to
+	 * @param data    Data passed to the receivers, consisting of word characters, commas and hyphens only
+	 */
+	void publish(String channel, String data) {
+		if (!CHANNELS.contains(channel) || !SAFE_DATA.matcher(data).matches()) {
+			throw new IllegalArgumentException("Invalid notification on " + channel + ": " + data);
+		}
+		// NOTIFY doesn't support bind parameters, but channel and data have been checked above and the instance id is a UUID:
+		em.createNativeQuery("NOTIFY " + channel + ", '" + instanceId + ":" + data + "'").executeUpdate();
+	}
+
+	private void listen() {
+		var reconnect = false;
+		while (running) {
+			try (var connection = openListenerConnection(); var statement = connection.createStatement()) {
+				var pgConnection = connection.unwrap(PGConnection.class);
+				for (var channel : CHANNELS) {
+					statement.execute("LISTEN " + channel);
+				}
+				if (reconnect) {
+					// notifications may have been missed while disconnected
+					CHANNELS.forEach(channel -> notifications.fire(new ClusterNotification(channel, null)));
+				}
+				reconnect = true;
+				while (running) {
+					var received = pgConnection.getNotifications(RECEIVE_TIMEOUT_MILLIS);
+					if (received == null) {
+						continue;
+					}
+					for (var notification : received) {
+						var payload = notification.getParameter();
+						var separator = payload.indexOf(':');
+						var sender = separator < 0 ? payload : payload.substring(0, separator);
+						if (!instanceId.equals(sender)) {
+							LOG.debugv("Received notification on {0} from other instance", notification.getName());
+							notifications.fire(new ClusterNotification(notification.getName(), separator < 0 ? "" : payload.substring(separator + 1)));
+						}
+					}
+				}
+			} catch (SQLException | RuntimeException e) {
+				if (running) {
+					LOG.warn("Listening for cluster notifications failed, reconnecting in " + RECONNECT_DELAY_MILLIS + "ms", e);
+					sleepBeforeReconnect();
+				}
+			}
+		}
+	}
+
+	private Connection openListenerConnection() throws SQLException {
+		var properties = new Properties();
+		username.ifPresent(user -> properties.setProperty("user", user));
+		password.ifPresent(pw -> properties.setProperty("password", pw));
+		properties.setProperty("ApplicationName", "hub-cluster-listener");
+		return DriverManager.getConnection(jdbcUrl, properties);
+	}
+
+	private void sleepBeforeReconnect() {
+		try {
+			Thread.sleep(RECONNECT_DELAY_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package org.cryptomator.hub.cluster;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Propagates changes of the {@link org.cryptomator.hub.entities.Settings Settings} between multiple Hub instances sharing the same database.
+ * <p>
+ * Changes are announced via {@link ClusterNotifications}. Each instance fires a {@link SettingsChanged} event for changes made by other instances.
+ */
+@ApplicationScoped
+public class SettingsChangeNotifier {
+
+	private static final Logger LOG = Logger.getLogger(SettingsChangeNotifier.class);
+	static final String CHANNEL = "hub_settings_changed";
+
+	@Inject
+	ClusterNotifications clusterNotifications;
+
+	@Inject
+	Event<SettingsChanged> settingsChanged;
+
+	/**
+	 * Notifies all other instances that the settings have changed. Must be called within the transaction changing the settings.
+	 */
+	public void publish() {
+		clusterNotifications.publish(CHANNEL, "");
+	}
+
+	void onNotification(@Observes ClusterNotification notification) {
+		if (CHANNEL.equals(notification.channel())) {
+			LOG.debug("Settings changed by other instance");
+			settingsChanged.fire(new SettingsChanged()); // also if notifications may have been missed
+		}
+	}
+}
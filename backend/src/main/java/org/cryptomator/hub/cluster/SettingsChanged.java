@@ -0,0 +1,9 @@
+package org.cryptomator.hub.cluster;
+
+/**
+ * CDI event fired when the {@link org.cryptomator.hub.entities.Settings Settings} (including the license) have been changed by another Hub instance.
+ * <p>
+ * Observers should drop any state derived from the settings and reload it from the database.
+ */
+public record SettingsChanged() {
+}
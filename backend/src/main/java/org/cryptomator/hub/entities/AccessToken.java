@@ -14,10 +14,17 @@ import jakarta.persistence.MapsId;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
+import org.hibernate.query.NativeQuery;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Entity
 @Table(name = "access_token")
@@ -32,6 +39,18 @@ import java.util.UUID;
 			INNER JOIN EffectiveVaultAccess perm ON token.id.vaultId = perm.id.vaultId AND token.id.userId = perm.id.authorityId
 			WHERE token.id.vaultId = :vaultId AND token.id.userId = :userId
 		""")
+@NamedQuery(name = "AccessToken.unlockInfo", query = """
+			SELECT v.id,
+				v.archived,
+				CASE WHEN u.ecdhPublicKey IS NULL THEN false ELSE true END,
+				CASE WHEN EXISTS (
+					SELECT perm FROM EffectiveVaultAccess perm WHERE perm.id.vaultId = v.id AND perm.id.authorityId = u.id
+				) THEN token.vaultKey ELSE NULL END
+			FROM Vault v
+			INNER JOIN User u ON u.id = :userId
+			LEFT JOIN AccessToken token ON token.id.vaultId = v.id AND token.id.userId = u.id
+			WHERE v.id IN :vaultIds
+		""")
 public class AccessToken {
 
 	@EmbeddedId
@@ -161,9 +180,19 @@ public class AccessToken {
 		}
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<AccessToken, AccessId> {
 
+		//visible for testing
+		static final int MAX_UPSERT_ROWS = 1000;
+
+		private static final String UPSERT_VALUES = """
+				INSERT INTO "access_token" ("user_id", "vault_id", "vault_masterkey")
+				VALUES %s
+				ON CONFLICT ("user_id", "vault_id") DO UPDATE SET "vault_masterkey" = EXCLUDED."vault_masterkey"
+				""";
+
 		public AccessToken unlock(UUID vaultId, String userId) {
 			try {
 				return find("#AccessToken.get", Parameters.with("vaultId", vaultId).and("userId", userId)).firstResult();
@@ -172,8 +201,69 @@ public class AccessToken {
 			}
 		}
 
+		/**
+		 * Gathers everything needed to decide about an unlock request in a single query, without loading any entities.
+		 *
+		 * @param vaultId The vault to unlock
+		 * @param userId The user requesting the vault key
+		 * @return The unlock info or <code>null</code> if either the vault or the user doesn't exist
+		 */
+		public UnlockInfo unlockInfo(UUID vaultId, String userId) {
+			return unlockInfos(List.of(vaultId), userId).get(vaultId);
+		}
+
+		/**
+		 * Gathers everything needed to decide about unlock requests for multiple vaults in a single query, without loading any entities.
+		 *
+		 * @param vaultIds The vaults to unlock
+		 * @param userId The user requesting the vault keys
+		 * @return The unlock info of each existing vault. Empty if the user doesn't exist.
+		 */
+		public Map<UUID, UnlockInfo> unlockInfos(Collection<UUID> vaultIds, String userId) {
+			return getEntityManager().createNamedQuery("AccessToken.unlockInfo", Object[].class)
+					.setParameter("vaultIds", vaultIds)
+					.setParameter("userId", userId)
+					.getResultStream()
+					.collect(Collectors.toMap(row -> (UUID) row[0], row -> new UnlockInfo((Boolean) row[1], (Boolean) row[2], (String) row[3])));
+		}
+
+		/**
+		 * Inserts or replaces the access tokens of a user using multi-row upserts, each covering up to {@value #MAX_UPSERT_ROWS} vaults.
+		 * Access tokens already loaded into the persistence context are not updated.
+		 *
+		 * @param userId    The user
+		 * @param vaultKeys The vault key per vault, encrypted for the user. All vaults must exist.
+		 */
+		public void upsertAll(String userId, Map<UUID, String> vaultKeys) {
+			var entries = List.copyOf(vaultKeys.entrySet());
+			for (int offset = 0; offset < entries.size(); offset += MAX_UPSERT_ROWS) {
+				upsertChunk(userId, entries.subList(offset, Math.min(offset + MAX_UPSERT_ROWS, entries.size())));
+			}
+		}
+
+		private void upsertChunk(String userId, List<Map.Entry<UUID, String>> entries) {
+			var values = IntStream.range(0, entries.size())
+					.mapToObj(i -> "(:userId, :vaultId%1$d, :vaultKey%1$d)".formatted(i))
+					.collect(Collectors.joining(", "));
+			NativeQuery<?> query = getEntityManager().createNativeQuery(UPSERT_VALUES.formatted(values)).unwrap(NativeQuery.class);
+			query.setParameter("userId", userId, String.class);
+			for (int i = 0; i < entries.size(); i++) {
+				query.setParameter("vaultId" + i, entries.get(i).getKey(), UUID.class)
+						.setParameter("vaultKey" + i, entries.get(i).getValue(), String.class);
+			}
+			query.executeUpdate();
+		}
+
 		public void deleteByUser(String userId) {
 			delete("#AccessToken.deleteByUser", Parameters.with("userId", userId));
 		}
 	}
+
+	/**
+	 * @param archived Whether the vault is archived
+	 * @param userInitialized Whether the user has set up their account keys
+	 * @param vaultKey The user's vault key or <code>null</code> if the user has no token or no longer has access to the vault
+	 */
+	public record UnlockInfo(boolean archived, boolean userInitialized, String vaultKey) {
+	}
 }
@@ -11,6 +11,7 @@ import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
 
 import java.util.List;
 import java.util.Objects;
@@ -79,6 +80,7 @@ public class Authority {
 		return Objects.hash(id, name);
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<Authority, String> {
 
@@ -89,5 +91,18 @@ public class Authority {
 		public Stream<Authority> findAllInList(List<String> ids) {
 			return find("#Authority.allInList", Parameters.with("ids", ids)).stream();
 		}
+
+		public SyncVersion syncVersionOfAllInList(List<String> ids) {
+			if (ids.isEmpty()) {
+				return new SyncVersion(0, 0);
+			}
+			return SyncVersion.of(getEntityManager().createNativeQuery("""
+							SELECT COUNT(*), COALESCE(SUM("a"."sync_version" + COALESCE("u"."sync_version", 0)), 0)
+							FROM "authority" "a"
+							LEFT JOIN "user_details" "u" ON "u"."id" = "a"."id"
+							WHERE "a"."id" IN (:ids)
+							""")
+					.setParameter("ids", ids));
+		}
 	}
 }
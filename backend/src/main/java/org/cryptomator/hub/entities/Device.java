@@ -14,6 +14,8 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.Instant;
 import java.util.List;
@@ -22,10 +24,12 @@ import java.util.stream.Stream;
 
 @Entity
 @Table(name = "device")
+@DynamicUpdate
 @NamedQuery(name = "Device.findByIdAndOwner",
 		query = "SELECT d FROM Device d WHERE d.id = :deviceId AND d.owner.id = :userId"
 )
 @NamedQuery(name = "Device.deleteByOwner", query = "DELETE FROM Device d WHERE d.owner.id = :userId")
+@NamedQuery(name = "Device.idsByOwner", query = "SELECT d.id FROM Device d WHERE d.owner.id = :userId")
 @NamedQuery(name = "Device.allInList",
 		query = """
 				SELECT d
@@ -150,6 +154,7 @@ public class Device {
 		return Objects.hash(id, owner, name, type, publickey, userPrivateKeys, creationTime);
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<Device, String> {
 
@@ -161,6 +166,34 @@ public class Device {
 			return find("#Device.allInList", Parameters.with("ids", ids)).stream();
 		}
 
+		public SyncVersion syncVersionOfOwner(String userId) {
+			return SyncVersion.of(getEntityManager().createNativeQuery("""
+							SELECT COUNT(*), COALESCE(SUM("sync_version"), 0) FROM "device" WHERE "owner_id" = :userId
+							""")
+					.setParameter("userId", userId));
+		}
+
+		public Stream<String> findIdsByOwner(String userId) {
+			return getEntityManager().createNamedQuery("Device.idsByOwner", String.class).setParameter("userId", userId).getResultStream();
+		}
+
+		/**
+		 * Finds devices of the given user, that have been added or changed since the given version.
+		 *
+		 * @param userId The owner
+		 * @param version The sync version, see {@link User.Repository#currentSyncVersion()}
+		 * @return Devices changed since the given version
+		 */
+		@SuppressWarnings("unchecked")
+		public Stream<Device> findByOwnerChangedSince(String userId, long version) {
+			return getEntityManager().createNativeQuery("""
+							SELECT * FROM "device" WHERE "owner_id" = :userId AND "sync_version" >= :version
+							""", Device.class)
+					.setParameter("userId", userId)
+					.setParameter("version", version)
+					.getResultStream();
+		}
+
 		public void deleteByOwner(String userId) {
 			delete("#Device.deleteByOwner", Parameters.with("userId", userId));
 		}
@@ -11,6 +11,8 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import jakarta.transaction.Transactional;
+import org.cryptomator.hub.tracing.Traced;
 import org.hibernate.annotations.Immutable;
 
 import java.io.Serializable;
@@ -57,6 +59,17 @@ import java.util.stream.Collectors;
 		INNER JOIN Vault v ON eva.id.vaultId = v.id AND NOT v.archived
 		WHERE egm.id.groupId = :groupId
 		""")
+@NamedQuery(name = "EffectiveVaultAccess.countUsersWithoutSeat", query = """
+		SELECT count(DISTINCT u)
+		FROM User u
+		WHERE (u.id IN :authorityIds OR u.id IN (SELECT egm.id.memberId FROM EffectiveGroupMembership egm WHERE egm.id.groupId IN :authorityIds))
+			AND NOT EXISTS (
+				SELECT eva
+				FROM EffectiveVaultAccess eva
+				INNER JOIN Vault v ON eva.id.vaultId = v.id AND NOT v.archived
+				WHERE eva.id.authorityId = u.id
+			)
+		""")
 @NamedQuery(name = "EffectiveVaultAccess.findByAuthorityAndVault", query = """
 		SELECT eva
 		FROM EffectiveVaultAccess eva
@@ -145,9 +158,29 @@ public class EffectiveVaultAccess {
 		}
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<EffectiveVaultAccess, Id> {
 
+		/**
+		 * Key of the transaction-level advisory lock guarding the license seats. Arbitrary, but must not be used for any other advisory lock.
+		 */
+		private static final long SEAT_LOCK_KEY = 0x4855425345415453L; // "HUBSEATS"
+
+		/**
+		 * Reserves the license seats for the current transaction, waiting for any other transaction holding them to complete.
+		 * <p>
+		 * Operations that may occupy additional seats must call this before counting the occupied seats. Otherwise, concurrent operations
+		 * could each see a free seat and together exceed the license. Only these operations serialize on the lock, while reads and
+		 * writes not affecting seats proceed without blocking. The lock is released on commit or rollback.
+		 */
+		@Transactional(Transactional.TxType.MANDATORY)
+		public void lockSeats() {
+			getEntityManager().createNativeQuery("SELECT CAST(pg_advisory_xact_lock(:key) AS TEXT)")
+					.setParameter("key", SEAT_LOCK_KEY)
+					.getSingleResult();
+		}
+
 		public boolean isUserOccupyingSeat(String userId) {
 			return count("#EffectiveVaultAccess.countSeatsOccupiedBySingleUser", Parameters.with("userId", userId)) > 0;
 		}
@@ -168,6 +201,19 @@ public class EffectiveVaultAccess {
 			return count("#EffectiveVaultAccess.countSeatOccupyingUsersOfGroup", Parameters.with("groupId", groupId));
 		}
 
+		/**
+		 * Counts the seats that would additionally be occupied if the given authorities were granted access to a vault.
+		 *
+		 * @param authorityIds IDs of users and groups
+		 * @return Number of distinct users among the given users and the effective members of the given groups that don't occupy a seat yet
+		 */
+		public long countUsersWithoutSeat(Collection<String> authorityIds) {
+			if (authorityIds.isEmpty()) {
+				return 0;
+			}
+			return count("#EffectiveVaultAccess.countUsersWithoutSeat", Parameters.with("authorityIds", authorityIds));
+		}
+
 		public Collection<VaultAccess.Role> listRoles(UUID vaultId, String authorityId) {
 			return find("#EffectiveVaultAccess.findByAuthorityAndVault", Parameters.with("vaultId", vaultId).and("authorityId", authorityId)).stream()
 					.map(eva -> eva.getId().getRole())
@@ -10,6 +10,7 @@ import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
 import org.hibernate.annotations.Immutable;
 import org.hibernate.annotations.Type;
 
@@ -95,6 +96,7 @@ public class EffectiveWot {
 		}
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<EffectiveWot, Id> {
 		public PanacheQuery<EffectiveWot> findTrusted(String trustingUserId) {
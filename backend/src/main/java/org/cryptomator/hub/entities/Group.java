@@ -10,6 +10,7 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import org.cryptomator.hub.tracing.Traced;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -39,7 +40,16 @@ public class Group extends Authority {
 		return members.size();
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<Group, String> {
+
+		public SyncVersion syncVersionOfAll() {
+			return SyncVersion.of(getEntityManager().createNativeQuery("""
+					SELECT COUNT(*), COALESCE(SUM("a"."sync_version"), 0)
+					FROM "authority" "a"
+					INNER JOIN "group_details" "g" ON "g"."id" = "a"."id"
+					"""));
+		}
 	}
 }
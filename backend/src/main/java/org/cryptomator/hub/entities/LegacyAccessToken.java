@@ -8,6 +8,7 @@ import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
 
 import java.io.Serializable;
 import java.util.Map;
@@ -141,6 +142,7 @@ public class LegacyAccessToken {
 	 * @deprecated to be removed in <a href="https://github.com/cryptomator/hub/issues/333">#333</a>
 	 */
 	@Deprecated(since = "1.3.0", forRemoval = true)
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<LegacyAccessToken, AccessId> {
 
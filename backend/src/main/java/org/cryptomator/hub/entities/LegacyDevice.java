@@ -13,6 +13,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
 
 import java.time.Instant;
 import java.util.List;
@@ -91,6 +92,7 @@ public class LegacyDevice {
 	 * @deprecated to be removed in <a href="https://github.com/cryptomator/hub/issues/333">#333</a>
 	 */
 	@Deprecated(since = "1.3.0", forRemoval = true)
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<LegacyDevice, String> {
 
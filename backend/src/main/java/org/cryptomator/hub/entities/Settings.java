@@ -2,12 +2,19 @@ package org.cryptomator.hub.entities;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.cluster.SettingsChanged;
+import org.cryptomator.hub.tracing.Traced;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Entity
 @Table(name = "settings")
@@ -99,11 +106,78 @@ public class Settings {
 		return Objects.hash(id, hubId, licenseKey, wotMaxDepth, wotIdVerifyLen);
 	}
 
+	/**
+	 * Immutable copy of the settings, safe to share between threads and requests.
+	 */
+	public record Snapshot(String hubId, String licenseKey, int wotMaxDepth, int wotIdVerifyLen) {
+
+		public static Snapshot of(Settings settings) {
+			return new Snapshot(settings.getHubId(), settings.getLicenseKey(), settings.getWotMaxDepth(), settings.getWotIdVerifyLen());
+		}
+	}
+
+	/**
+	 * Fired within the transaction that updated the settings.
+	 */
+	public record Updated(Snapshot snapshot) {
+	}
+
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepository<Settings> {
 
+		/**
+		 * Cached settings with a generation counter, which is incremented on every change. The snapshot is {@code null} if not loaded yet.
+		 */
+		private record Cached(long generation, Snapshot snapshot) {
+		}
+
+		private final AtomicReference<Cached> cache = new AtomicReference<>(new Cached(0, null));
+
+		@Inject
+		Event<Updated> updated;
+
+		/**
+		 * Loads the settings entity from the database. Use this for modifications, which need to be written using {@link #update(Settings)}.
+		 *
+		 * @return The managed settings entity
+		 */
 		public Settings get() {
 			return Objects.requireNonNull(findById(SINGLETON_ID), "Settings not initialized");
 		}
+
+		/**
+		 * Returns the current settings, only querying the database on the first call and after changes by other Hub instances.
+		 *
+		 * @return A read-only snapshot of the settings
+		 */
+		public Snapshot getCached() {
+			var cached = cache.get();
+			if (cached.snapshot() != null) {
+				return cached.snapshot();
+			}
+			var snapshot = Snapshot.of(get());
+			// only store if no change happened meanwhile, otherwise we might cache a stale value:
+			cache.compareAndSet(cached, new Cached(cached.generation(), snapshot));
+			return snapshot;
+		}
+
+		/**
+		 * Writes the given settings to the database. The cache is updated as soon as the current transaction commits.
+		 *
+		 * @param settings The modified settings entity
+		 */
+		public void update(Settings settings) {
+			persistAndFlush(settings);
+			updated.fire(new Updated(Snapshot.of(settings)));
+		}
+
+		void onUpdated(@Observes(during = TransactionPhase.AFTER_SUCCESS) Updated event) {
+			cache.updateAndGet(cached -> new Cached(cached.generation() + 1, event.snapshot()));
+		}
+
+		void onSettingsChanged(@Observes SettingsChanged event) {
+			cache.updateAndGet(cached -> new Cached(cached.generation() + 1, null));
+		}
 	}
 }
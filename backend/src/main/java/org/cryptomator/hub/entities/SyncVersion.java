@@ -0,0 +1,35 @@
+package org.cryptomator.hub.entities;
+
+import jakarta.persistence.Query;
+
+/**
+ * Summarizes the <code>sync_version</code> columns of a set of rows, serving as a cheap validator for anything derived from these rows.
+ * <p>
+ * Since each insert or update stamps a row with the ID of the modifying transaction, the sum changes whenever rows are added or changed.
+ * Removals are revealed by the count.
+ *
+ * @param count number of rows
+ * @param sum   sum of the sync versions of all rows
+ */
+public record SyncVersion(long count, long sum) {
+
+	/**
+	 * Runs a query that selects the count and sum (in this order) of sync versions.
+	 *
+	 * @param query A query returning a single row with two numeric columns
+	 * @return The sync version
+	 */
+	static SyncVersion of(Query query) {
+		var row = (Object[]) query.getSingleResult();
+		return new SyncVersion(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+	}
+
+	public SyncVersion plus(SyncVersion other) {
+		return new SyncVersion(count + other.count, sum + other.sum);
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+}
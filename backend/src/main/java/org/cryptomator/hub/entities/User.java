@@ -10,6 +10,8 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.HashSet;
 import java.util.Objects;
@@ -20,6 +22,7 @@ import java.util.stream.Stream;
 @Entity
 @Table(name = "user_details")
 @DiscriminatorValue("USER")
+@DynamicUpdate // avoid rewriting the large key columns if only the profile changes
 @NamedQuery(name = "User.requiringAccessGrant",
 		query = """
 				SELECT u
@@ -172,6 +175,7 @@ public class User extends Authority {
 		return Objects.hash(super.getId(), pictureUrl, email);
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<User, String> {
 
@@ -186,5 +190,58 @@ public class User extends Authority {
 		public Stream<User> getEffectiveGroupUsers(String groupdId) {
 			return find("#User.getEffectiveGroupUsers", Parameters.with("groupId", groupdId)).stream();
 		}
+
+		public SyncVersion syncVersion(String userId) {
+			return SyncVersion.of(getEntityManager().createNativeQuery("""
+							SELECT COUNT(*), COALESCE(SUM("a"."sync_version" + "u"."sync_version"), 0)
+							FROM "authority" "a"
+							INNER JOIN "user_details" "u" ON "u"."id" = "a"."id"
+							WHERE "a"."id" = :userId
+							""")
+					.setParameter("userId", userId));
+		}
+
+		public SyncVersion syncVersionOfAll() {
+			return SyncVersion.of(getEntityManager().createNativeQuery("""
+					SELECT COUNT(*), COALESCE(SUM("a"."sync_version" + "u"."sync_version"), 0)
+					FROM "authority" "a"
+					INNER JOIN "user_details" "u" ON "u"."id" = "a"."id"
+					"""));
+		}
+
+		/**
+		 * Determines the sync version, that clients can use to request changes since now.
+		 * <p>
+		 * Rows are stamped with the ID of the transaction that changed them. This is the oldest transaction still in progress, so that
+		 * any change not yet visible will be stamped with a version at least as high as this one.
+		 *
+		 * @return The current sync version
+		 */
+		public long currentSyncVersion() {
+			var version = getEntityManager().createNativeQuery("""
+					SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS TEXT) AS BIGINT)
+					""").getSingleResult();
+			return ((Number) version).longValue();
+		}
+
+		/**
+		 * Checks whether the given user's details have changed since the given version.
+		 *
+		 * @param userId The user
+		 * @param version The sync version, see {@link #currentSyncVersion()}
+		 * @return <code>true</code> if the user exists and has been changed since the given version
+		 */
+		public boolean isChangedSince(String userId, long version) {
+			var changed = getEntityManager().createNativeQuery("""
+							SELECT COUNT(*)
+							FROM "authority" "a"
+							INNER JOIN "user_details" "u" ON "u"."id" = "a"."id"
+							WHERE "a"."id" = :userId AND GREATEST("a"."sync_version", "u"."sync_version") >= :version
+							""")
+					.setParameter("userId", userId)
+					.setParameter("version", version)
+					.getSingleResult();
+			return ((Number) changed).longValue() > 0;
+		}
 	}
 }
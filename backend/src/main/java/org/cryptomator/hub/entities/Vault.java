@@ -13,6 +13,7 @@ import jakarta.persistence.ManyToMany;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
 import org.hibernate.annotations.Immutable;
 
 import java.security.KeyFactory;
@@ -22,6 +23,7 @@ import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -29,6 +31,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @Entity
@@ -46,6 +49,18 @@ import java.util.stream.Stream;
 				INNER JOIN EffectiveVaultAccess a ON a.id.vaultId = v.id AND a.id.authorityId = :userId
 				WHERE a.id.role = :role
 				""")
+@NamedQuery(name = "Vault.accessibleIdsByUser",
+		query = """
+				SELECT DISTINCT a.id.vaultId
+				FROM EffectiveVaultAccess a
+				WHERE a.id.authorityId = :userId
+				""")
+@NamedQuery(name = "Vault.idsInList",
+		query = """
+				SELECT v.id
+				FROM Vault v
+				WHERE v.id IN :ids
+				""")
 @NamedQuery(name = "Vault.allInList",
 		query = """
 				SELECT v
@@ -264,9 +279,31 @@ public class Vault {
 				'}';
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<Vault, UUID> {
 
+		//visible for testing
+		static final int MAX_IDS_PER_QUERY = 1000;
+
+		// walks up the group hierarchy like "effective_group_membership", keeping track of the most recent membership change along the way:
+		private static final String ACCESSIBLE_BY_USER_CHANGED_SINCE = """
+				WITH RECURSIVE "authorities" ("id", "sync_version", "depth") AS (
+					SELECT CAST(:userId AS VARCHAR), CAST(0 AS BIGINT), 0
+					UNION
+					SELECT "gm"."group_id", GREATEST("a"."sync_version", "gm"."sync_version"), "a"."depth" + 1
+						FROM "group_membership" "gm"
+						INNER JOIN "authorities" "a" ON "gm"."member_id" = "a"."id"
+						WHERE "a"."depth" < 10
+				)
+				SELECT DISTINCT "v".*
+				FROM "vault" "v"
+				INNER JOIN "vault_access" "va" ON "va"."vault_id" = "v"."id"
+				INNER JOIN "authorities" "a" ON "a"."id" = "va"."authority_id"
+				LEFT JOIN "access_token" "t" ON "t"."vault_id" = "v"."id" AND "t"."user_id" = :userId
+				WHERE GREATEST("v"."sync_version", "va"."sync_version", "a"."sync_version", COALESCE("t"."sync_version", 0)) >= :version
+				""";
+
 		public Stream<Vault> findAccessibleByUser(String userId) {
 			return find("#Vault.accessibleByUser", Parameters.with("userId", userId)).stream();
 		}
@@ -275,8 +312,47 @@ public class Vault {
 			return find("#Vault.accessibleByUserAndRole", Parameters.with("userId", userId).and("role", role)).stream();
 		}
 
+		public SyncVersion syncVersion(UUID vaultId) {
+			return SyncVersion.of(getEntityManager().createNativeQuery("""
+							SELECT COUNT(*), COALESCE(SUM("sync_version"), 0) FROM "vault" WHERE "id" = :vaultId
+							""")
+					.setParameter("vaultId", vaultId));
+		}
+
+		public Stream<UUID> findAccessibleIdsByUser(String userId) {
+			return getEntityManager().createNamedQuery("Vault.accessibleIdsByUser", UUID.class).setParameter("userId", userId).getResultStream();
+		}
+
+		/**
+		 * Finds vaults accessible by the given user, that have been changed, granted to the user or for which the user received a new access token since the given version.
+		 *
+		 * @param userId The user
+		 * @param version The sync version, see {@link User.Repository#currentSyncVersion()}
+		 * @return Accessible vaults changed since the given version
+		 */
+		@SuppressWarnings("unchecked")
+		public Stream<Vault> findAccessibleByUserChangedSince(String userId, long version) {
+			return getEntityManager().createNativeQuery(ACCESSIBLE_BY_USER_CHANGED_SINCE, Vault.class)
+					.setParameter("userId", userId)
+					.setParameter("version", version)
+					.getResultStream();
+		}
+
 		public Stream<Vault> findAllInList(List<UUID> ids) {
 			return find("#Vault.allInList", Parameters.with("ids", ids)).stream();
 		}
+
+		/**
+		 * Filters the given vault IDs, querying up to {@value #MAX_IDS_PER_QUERY} at once to stay within the database's bind parameter limit.
+		 *
+		 * @param ids The vault IDs to look up
+		 * @return The IDs of all existing vaults among them
+		 */
+		public Stream<UUID> findIdsInList(Collection<UUID> ids) {
+			var idList = List.copyOf(ids);
+			return IntStream.iterate(0, offset -> offset < idList.size(), offset -> offset + MAX_IDS_PER_QUERY)
+					.mapToObj(offset -> idList.subList(offset, Math.min(offset + MAX_IDS_PER_QUERY, idList.size())))
+					.flatMap(chunk -> getEntityManager().createNamedQuery("Vault.idsInList", UUID.class).setParameter("ids", chunk).getResultStream());
+		}
 	}
 }
@@ -14,8 +14,10 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.MapsId;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Stream;
@@ -30,6 +32,12 @@ import java.util.stream.Stream;
 				INNER JOIN FETCH va.authority
 				WHERE va.id.vaultId = :vaultId
 				""")
+@NamedQuery(name = "VaultAccess.forVaultAndAuthorities",
+		query = """
+				SELECT va
+				FROM VaultAccess va
+				WHERE va.id.vaultId = :vaultId AND va.id.authorityId IN :authorityIds
+				""")
 public class VaultAccess {
 
 	@EmbeddedId
@@ -149,11 +157,40 @@ public class VaultAccess {
 		}
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<VaultAccess, Id> {
 
 		public Stream<VaultAccess> forVault(UUID vaultId) {
 			return find("#VaultAccess.forVault", Parameters.with("vaultId", vaultId)).stream();
 		}
+
+		public Stream<VaultAccess> forVaultAndAuthorities(UUID vaultId, Collection<String> authorityIds) {
+			return find("#VaultAccess.forVaultAndAuthorities", Parameters.with("vaultId", vaultId).and("authorityIds", authorityIds)).stream();
+		}
+
+		/**
+		 * Summarizes everything listed for the direct members of a vault: their access, their details and, for groups, their member count.
+		 *
+		 * @param vaultId The vault
+		 * @return The sync version of the direct members
+		 */
+		public SyncVersion syncVersionOfMembers(UUID vaultId) {
+			return SyncVersion.of(getEntityManager().createNativeQuery("""
+							SELECT COUNT(*), COALESCE(SUM("versions"."sync_version"), 0) FROM (
+								SELECT "va"."sync_version" + "a"."sync_version" + COALESCE("u"."sync_version", 0) AS "sync_version"
+									FROM "vault_access" "va"
+									INNER JOIN "authority" "a" ON "a"."id" = "va"."authority_id"
+									LEFT JOIN "user_details" "u" ON "u"."id" = "a"."id"
+									WHERE "va"."vault_id" = :vaultId
+								UNION ALL
+								SELECT "gm"."sync_version"
+									FROM "vault_access" "va"
+									INNER JOIN "group_membership" "gm" ON "gm"."group_id" = "va"."authority_id"
+									WHERE "va"."vault_id" = :vaultId
+							) "versions"
+							""")
+					.setParameter("vaultId", vaultId));
+		}
 	}
 }
@@ -7,6 +7,7 @@ import jakarta.persistence.Embeddable;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
 
 import java.io.Serializable;
 import java.util.Objects;
@@ -86,6 +87,7 @@ public class WotEntry {
 		}
 	}
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepositoryBase<WotEntry, Id> {
 	}
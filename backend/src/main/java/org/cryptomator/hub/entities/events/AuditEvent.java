@@ -8,15 +8,18 @@ import jakarta.persistence.Column;
 import jakarta.persistence.DiscriminatorColumn;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
 import jakarta.persistence.NamedQuery;
-import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import org.cryptomator.hub.tracing.Traced;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -46,6 +49,32 @@ import java.util.stream.Stream;
 				AND (:allTypes = true OR ae.type IN :types)
 				ORDER BY ae.id ASC
 				""")
+@NamedQuery(name = "AuditEvent.listAllAfterId",
+		query = """
+				SELECT ae
+				FROM AuditEvent ae
+				WHERE ae.id > :paginationId
+				ORDER BY ae.id ASC
+				""")
+@NamedQuery(name = "AuditEvent.listAllAfterIdOrIn",
+		query = """
+				SELECT ae
+				FROM AuditEvent ae
+				WHERE ae.id > :paginationId OR ae.id IN :ids
+				ORDER BY ae.id ASC
+				""")
+@NamedQuery(name = "AuditEvent.allInList",
+		query = """
+				SELECT ae
+				FROM AuditEvent ae
+				WHERE ae.id IN :ids
+				ORDER BY ae.id ASC
+				""")
+@NamedQuery(name = "AuditEvent.maxId",
+		query = """
+				SELECT COALESCE(MAX(ae.id), 0)
+				FROM AuditEvent ae
+				""")
 @NamedQuery(name = "AuditEvent.lastVaultKeyRetrieve",
 		query = """
 				SELECT e1
@@ -57,11 +86,14 @@ import java.util.stream.Stream;
 					WHERE e2.deviceId = e1.deviceId
 				  )
 				""")
-@SequenceGenerator(name = "audit_event_id_seq", sequenceName = "audit_event_id_seq", allocationSize = 1)
+@GenericGenerator(name = "audit_event_id_seq", type = AuditEventIdGenerator.class, parameters = {
+		@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "audit_event_id_seq"),
+		@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "1")
+})
 public class AuditEvent {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_event_id_seq")
+	@GeneratedValue(generator = "audit_event_id_seq")
 	@Column(name = "id", nullable = false, updatable = false)
 	private long id;
 
@@ -118,6 +150,7 @@ public class AuditEvent {
 	}
 
 
+	@Traced
 	@ApplicationScoped
 	public static class Repository implements PanacheRepository<AuditEvent> {
 
@@ -140,6 +173,55 @@ public class AuditEvent {
 			return query.stream();
 		}
 
+		/**
+		 * Draws the given number of ids from <code>audit_event_id_seq</code> in a single statement.
+		 *
+		 * @param count Number of ids
+		 * @return The ids in ascending order
+		 */
+		public List<Long> nextIds(int count) {
+			Stream<?> ids = getEntityManager().createNativeQuery("""
+							SELECT nextval('audit_event_id_seq') FROM generate_series(1, :count)
+							""")
+					.setParameter("count", count)
+					.getResultStream();
+			return ids.map(id -> ((Number) id).longValue()).sorted().toList();
+		}
+
+		public List<AuditEvent> findAllAfterId(long paginationId, int limit) {
+			return find("#AuditEvent.listAllAfterId", Parameters.with("paginationId", paginationId)).page(0, limit).list();
+		}
+
+		/**
+		 * Lists events with an id greater than the given one or any of the given lower ids, which may belong to events committed out of id order.
+		 *
+		 * @param paginationId the id to start after
+		 * @param ids          further ids to include
+		 * @param limit        maximum number of events
+		 * @return events ordered by id
+		 */
+		public List<AuditEvent> findAllAfterId(long paginationId, Collection<Long> ids, int limit) {
+			if (ids.isEmpty()) {
+				return findAllAfterId(paginationId, limit);
+			}
+			return find("#AuditEvent.listAllAfterIdOrIn", Parameters.with("paginationId", paginationId).and("ids", ids)).page(0, limit).list();
+		}
+
+		/**
+		 * @param ids the ids of the events
+		 * @return the existing events among them, ordered by id
+		 */
+		public List<AuditEvent> findAllInList(Collection<Long> ids) {
+			return find("#AuditEvent.allInList", Parameters.with("ids", ids)).list();
+		}
+
+		/**
+		 * @return the id of the latest audit event, or <code>0</code> if there is none
+		 */
+		public long findMaxId() {
+			return getEntityManager().createNamedQuery("AuditEvent.maxId", Long.class).getSingleResult();
+		}
+
 		public Stream<VaultKeyRetrievedEvent> findLastVaultKeyRetrieve(Set<String> deviceIds) {
 			return find("#AuditEvent.lastVaultKeyRetrieve", Parameters.with("deviceIds", deviceIds)).stream();
 		}
@@ -0,0 +1,44 @@
+package org.cryptomator.hub.entities.events;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Draws audit event ids from <code>audit_event_id_seq</code> one at a time, unless ids have been {@link #withReservedIds(Collection, Runnable) reserved}
+ * in advance for persisting many events at once.
+ * <p>
+ * Unlike a pooled optimizer, this never hands out ids from a block drawn long ago, so ids keep following commit order as closely as before,
+ * which is what polling the audit log by id and the audit event stream rely on.
+ */
+public class AuditEventIdGenerator extends SequenceStyleGenerator {
+
+	private static final ThreadLocal<Deque<Long>> RESERVED_IDS = new ThreadLocal<>();
+
+	/**
+	 * Runs the given task, assigning the reserved ids to the audit events it persists before drawing further ids from the sequence.
+	 *
+	 * @param ids  Ids drawn from <code>audit_event_id_seq</code>, in ascending order
+	 * @param task The task persisting audit events
+	 */
+	static void withReservedIds(Collection<Long> ids, Runnable task) {
+		RESERVED_IDS.set(new ArrayDeque<>(ids));
+		try {
+			task.run();
+		} finally {
+			RESERVED_IDS.remove();
+		}
+	}
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object object) {
+		var reserved = RESERVED_IDS.get();
+		if (reserved != null && !reserved.isEmpty()) {
+			return reserved.poll();
+		}
+		return super.generate(session, object);
+	}
+}
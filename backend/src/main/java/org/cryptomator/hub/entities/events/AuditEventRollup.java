@@ -0,0 +1,212 @@
+package org.cryptomator.hub.entities.events;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.DiscriminatorValue;
+import jakarta.persistence.EntityManager;
+import org.cryptomator.hub.tracing.Traced;
+import org.hibernate.query.NativeQuery;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Hourly event counts per type, vault, acting user, device and result, stored in {@code audit_event_rollup}.
+ * <p>
+ * The rollup is incremented within the same transaction that persists the audit event, so statistics never need to scan {@code audit_event}.
+ */
+public final class AuditEventRollup {
+
+	private AuditEventRollup() {
+	}
+
+	public enum GroupBy {
+		TYPE("\"type\""),
+		VAULT("CAST(\"vault_id\" AS VARCHAR)"),
+		USER("\"user_id\""),
+		DEVICE("\"device_id\""),
+		RESULT("\"result\"");
+
+		private final String column;
+
+		GroupBy(String column) {
+			this.column = column;
+		}
+	}
+
+	public enum Interval {
+		HOUR,
+		DAY
+	}
+
+	public record Dimensions(String type, UUID vaultId, String userId, String deviceId, String result) {
+
+		/**
+		 * Extracts the dimensions of an event. Must be kept in sync with the {@code audit_event_dimension} view.
+		 * Events of types not listed here are counted by type only, as failing would roll back the operation being audited.
+		 *
+		 * @param event the audit event
+		 * @return the dimensions used for aggregation
+		 */
+		public static Dimensions of(AuditEvent event) {
+			return switch (event) {
+				case DeviceRegisteredEvent evt -> new Dimensions(DeviceRegisteredEvent.TYPE, null, evt.getRegisteredBy(), evt.getDeviceId(), null);
+				case DeviceRemovedEvent evt -> new Dimensions(DeviceRemovedEvent.TYPE, null, evt.getRemovedBy(), evt.getDeviceId(), null);
+				case SignedWotIdEvent evt -> new Dimensions(SignedWotIdEvent.TYPE, null, evt.getSignerId(), null, null);
+				case SettingWotUpdateEvent evt -> new Dimensions(SettingWotUpdateEvent.TYPE, null, evt.getUpdatedBy(), null, null);
+				case UserAccountResetEvent evt -> new Dimensions(UserAccountResetEvent.TYPE, null, evt.getResetBy(), null, null);
+				case UserKeysChangeEvent evt -> new Dimensions(UserKeysChangeEvent.TYPE, null, evt.getChangedBy(), null, null);
+				case UserSetupCodeChangeEvent evt -> new Dimensions(UserSetupCodeChangeEvent.TYPE, null, evt.getChangedBy(), null, null);
+				case VaultCreatedEvent evt -> new Dimensions(VaultCreatedEvent.TYPE, evt.getVaultId(), evt.getCreatedBy(), null, null);
+				case VaultUpdatedEvent evt -> new Dimensions(VaultUpdatedEvent.TYPE, evt.getVaultId(), evt.getUpdatedBy(), null, null);
+				case VaultAccessGrantedEvent evt -> new Dimensions(VaultAccessGrantedEvent.TYPE, evt.getVaultId(), evt.getGrantedBy(), null, null);
+				case VaultKeyRetrievedEvent evt -> new Dimensions(VaultKeyRetrievedEvent.TYPE, evt.getVaultId(), evt.getRetrievedBy(), evt.getDeviceId(), evt.getResult() == null ? null : evt.getResult().name());
+				case VaultMemberAddedEvent evt -> new Dimensions(VaultMemberAddedEvent.TYPE, evt.getVaultId(), evt.getAddedBy(), null, null);
+				case VaultMemberRemovedEvent evt -> new Dimensions(VaultMemberRemovedEvent.TYPE, evt.getVaultId(), evt.getRemovedBy(), null, null);
+				case VaultMemberUpdatedEvent evt -> new Dimensions(VaultMemberUpdatedEvent.TYPE, evt.getVaultId(), evt.getUpdatedBy(), null, null);
+				case VaultOwnershipClaimedEvent evt -> new Dimensions(VaultOwnershipClaimedEvent.TYPE, evt.getVaultId(), evt.getClaimedBy(), null, null);
+				default -> new Dimensions(typeOf(event), null, null, null, null);
+			};
+		}
+
+		private static String typeOf(AuditEvent event) {
+			var discriminator = event.getClass().getAnnotation(DiscriminatorValue.class);
+			return discriminator != null ? discriminator.value() : event.getType();
+		}
+	}
+
+	/**
+	 * A single aggregated value.
+	 *
+	 * @param start start of the interval (UTC)
+	 * @param key   value of the grouped dimension or <code>null</code> if not grouped or the dimension does not apply to the counted events
+	 * @param count number of events
+	 */
+	public record Bucket(Instant start, String key, long count) {
+	}
+
+	@Traced
+	@ApplicationScoped
+	public static class Repository {
+
+		private static final String UPSERT_VALUES = """
+				INSERT INTO "audit_event_rollup" ("bucket", "type", "vault_id", "user_id", "device_id", "result", "count")
+				VALUES %s
+				ON CONFLICT ("bucket", "type", COALESCE("vault_id", '00000000-0000-0000-0000-000000000000'), COALESCE("user_id", ''), COALESCE("device_id", ''), COALESCE("result", ''))
+				DO UPDATE SET "count" = "audit_event_rollup"."count" + EXCLUDED."count"
+				""";
+		private static final String UPSERT = UPSERT_VALUES.formatted("(:bucket, :type, :vaultId, :userId, :deviceId, :result, :delta)");
+
+		@Inject
+		EntityManager em;
+
+		public void increment(AuditEvent event) {
+			increment(event.getTimestamp(), Dimensions.of(event), 1);
+		}
+
+		public void increment(Instant timestamp, Dimensions dimensions, long delta) {
+			NativeQuery<?> query = em.createNativeQuery(UPSERT).unwrap(NativeQuery.class);
+			query.setParameter("bucket", timestamp.truncatedTo(ChronoUnit.HOURS), Instant.class)
+					.setParameter("type", dimensions.type(), String.class)
+					.setParameter("vaultId", dimensions.vaultId(), UUID.class)
+					.setParameter("userId", dimensions.userId(), String.class)
+					.setParameter("deviceId", dimensions.deviceId(), String.class)
+					.setParameter("result", dimensions.result(), String.class)
+					.setParameter("delta", delta, Long.class)
+					.executeUpdate();
+		}
+
+		/**
+		 * Increments the counts of multiple dimensions within the same hour using a single statement.
+		 *
+		 * @param timestamp time of the events
+		 * @param deltas    number of events per dimensions
+		 */
+		public void incrementAll(Instant timestamp, Map<Dimensions, Long> deltas) {
+			if (deltas.isEmpty()) {
+				return;
+			}
+			var values = IntStream.range(0, deltas.size())
+					.mapToObj(i -> "(:bucket, :type%1$d, :vaultId%1$d, :userId%1$d, :deviceId%1$d, :result%1$d, :delta%1$d)".formatted(i))
+					.collect(Collectors.joining(", "));
+			NativeQuery<?> query = em.createNativeQuery(UPSERT_VALUES.formatted(values)).unwrap(NativeQuery.class);
+			query.setParameter("bucket", timestamp.truncatedTo(ChronoUnit.HOURS), Instant.class);
+			var i = 0;
+			for (var entry : deltas.entrySet()) {
+				var dimensions = entry.getKey();
+				query.setParameter("type" + i, dimensions.type(), String.class)
+						.setParameter("vaultId" + i, dimensions.vaultId(), UUID.class)
+						.setParameter("userId" + i, dimensions.userId(), String.class)
+						.setParameter("deviceId" + i, dimensions.deviceId(), String.class)
+						.setParameter("result" + i, dimensions.result(), String.class)
+						.setParameter("delta" + i, entry.getValue(), Long.class);
+				i++;
+			}
+			query.executeUpdate();
+		}
+
+		/**
+		 * Sums up the events within the given period.
+		 *
+		 * @param startDate start of the period, inclusive. Rounded down to the full hour.
+		 * @param endDate   end of the period, exclusive. Rounded up to the full hour.
+		 * @param interval  size of the returned buckets
+		 * @param groupBy   dimension to group by within each bucket or <code>null</code> to count all events
+		 * @param types     event types to consider, empty for all types
+		 * @param vaultId   if not <code>null</code>, only consider events of this vault
+		 * @param userId    if not <code>null</code>, only consider events caused by this user
+		 * @param result    if not <code>null</code>, only consider events with this result
+		 * @return buckets ordered by start and key
+		 */
+		@SuppressWarnings("unchecked")
+		public List<Bucket> sum(Instant startDate, Instant endDate, Interval interval, GroupBy groupBy, List<String> types, UUID vaultId, String userId, String result) {
+			var keyColumn = groupBy == null ? "CAST(NULL AS VARCHAR)" : groupBy.column;
+			var sql = new StringBuilder()
+					.append("SELECT date_trunc(:interval, \"bucket\", 'UTC') AS \"start\", ").append(keyColumn).append(" AS \"key\", SUM(\"count\") AS \"count\"\n")
+					.append("FROM \"audit_event_rollup\"\n")
+					.append("WHERE \"bucket\" >= :startDate AND \"bucket\" < :endDate\n");
+			if (!types.isEmpty()) {
+				sql.append("AND \"type\" IN (:types)\n");
+			}
+			if (vaultId != null) {
+				sql.append("AND \"vault_id\" = :vaultId\n");
+			}
+			if (userId != null) {
+				sql.append("AND \"user_id\" = :userId\n");
+			}
+			if (result != null) {
+				sql.append("AND \"result\" = :result\n");
+			}
+			sql.append("GROUP BY 1, 2\nORDER BY 1, 2");
+
+			var endHour = endDate.truncatedTo(ChronoUnit.HOURS);
+			var query = em.createNativeQuery(sql.toString()).unwrap(NativeQuery.class)
+					.addScalar("start", Instant.class)
+					.addScalar("key", String.class)
+					.addScalar("count", Long.class)
+					.setParameter("interval", interval.name().toLowerCase())
+					.setParameter("startDate", startDate.truncatedTo(ChronoUnit.HOURS), Instant.class)
+					.setParameter("endDate", endHour.equals(endDate) ? endHour : endHour.plus(1, ChronoUnit.HOURS), Instant.class);
+			if (!types.isEmpty()) {
+				query.setParameterList("types", types);
+			}
+			if (vaultId != null) {
+				query.setParameter("vaultId", vaultId, UUID.class);
+			}
+			if (userId != null) {
+				query.setParameter("userId", userId);
+			}
+			if (result != null) {
+				query.setParameter("result", result);
+			}
+			return ((List<Object[]>) query.getResultList()).stream()
+					.map(row -> new Bucket((Instant) row[0], (String) row[1], (Long) row[2]))
+					.toList();
+		}
+	}
+}
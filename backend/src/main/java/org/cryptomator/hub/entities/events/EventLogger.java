@@ -1,18 +1,32 @@
 package org.cryptomator.hub.entities.events;
 
+import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import org.cryptomator.hub.cluster.AuditEventNotifier;
 import org.cryptomator.hub.entities.Device;
 import org.cryptomator.hub.entities.VaultAccess;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class EventLogger {
 
 	@Inject
 	AuditEvent.Repository auditEventRepository;
+	@Inject
+	AuditEventRollup.Repository auditEventRollupRepository;
+	@Inject
+	AuditEventNotifier auditEventNotifier;
+	@Inject
+	Event<AuditEvent> auditEventPersisted;
 
 	public void logVaultCreated(String createdBy, UUID vaultId, String vaultName, String vaultDescription) {
 		var event = new VaultCreatedEvent();
@@ -21,7 +35,7 @@ public class EventLogger {
 		event.setVaultId(vaultId);
 		event.setVaultName(vaultName);
 		event.setVaultDescription(vaultDescription);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logVaultUpdated(String updatedBy, UUID vaultId, String vaultName, String vaultDescription, boolean vaultArchived) {
@@ -32,7 +46,7 @@ public class EventLogger {
 		event.setVaultName(vaultName);
 		event.setVaultDescription(vaultDescription);
 		event.setVaultArchived(vaultArchived);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logDeviceRegisted(String registeredBy, String deviceId, String deviceName, Device.Type deviceType) {
@@ -42,7 +56,7 @@ public class EventLogger {
 		event.setDeviceId(deviceId);
 		event.setDeviceName(deviceName);
 		event.setDeviceType(deviceType);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logDeviceRemoved(String removedBy, String deviceId) {
@@ -50,14 +64,14 @@ public class EventLogger {
 		event.setTimestamp(Instant.now());
 		event.setRemovedBy(removedBy);
 		event.setDeviceId(deviceId);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logUserAccountReset(String resetBy) {
 		var event = new UserAccountResetEvent();
 		event.setTimestamp(Instant.now());
 		event.setResetBy(resetBy);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logUserKeysChanged(String changedBy, String userName) {
@@ -65,14 +79,14 @@ public class EventLogger {
 		event.setTimestamp(Instant.now());
 		event.setChangedBy(changedBy);
 		event.setUserName(userName);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logUserSetupCodeChanged(String changedBy) {
 		var event = new UserSetupCodeChangeEvent();
 		event.setTimestamp(Instant.now());
 		event.setChangedBy(changedBy);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logVaultAccessGranted(String grantedBy, UUID vaultId, String authorityId) {
@@ -81,7 +95,28 @@ public class EventLogger {
 		event.setGrantedBy(grantedBy);
 		event.setVaultId(vaultId);
 		event.setAuthorityId(authorityId);
-		auditEventRepository.persist(event);
+		log(event);
+	}
+
+	/**
+	 * Logs access being granted to multiple vaults, writing all events as a batch.
+	 *
+	 * @param grantedBy   The user granting access
+	 * @param vaultIds    The vaults
+	 * @param authorityId The authority receiving access
+	 */
+	public void logVaultAccessesGranted(String grantedBy, Collection<UUID> vaultIds, String authorityId) {
+		var timestamp = Instant.now();
+		var events = new ArrayList<AuditEvent>(vaultIds.size());
+		for (var vaultId : vaultIds) {
+			var event = new VaultAccessGrantedEvent();
+			event.setTimestamp(timestamp);
+			event.setGrantedBy(grantedBy);
+			event.setVaultId(vaultId);
+			event.setAuthorityId(authorityId);
+			events.add(event);
+		}
+		logAll(timestamp, events);
 	}
 
 	public void logVaultKeyRetrieved(String retrievedBy, UUID vaultId, VaultKeyRetrievedEvent.Result result, String ipAddress, String deviceId) {
@@ -92,7 +127,31 @@ public class EventLogger {
 		event.setResult(result);
 		event.setIpAddress(ipAddress);
 		event.setDeviceId(deviceId);
-		auditEventRepository.persist(event);
+		log(event);
+	}
+
+	/**
+	 * Logs the retrieval of multiple vault keys, writing all events as a batch.
+	 *
+	 * @param retrievedBy The user retrieving the vault keys
+	 * @param results     The result per vault
+	 * @param ipAddress   The IP address of the client
+	 * @param deviceId    The device ID of the client, may be <code>null</code>
+	 */
+	public void logVaultKeysRetrieved(String retrievedBy, Map<UUID, VaultKeyRetrievedEvent.Result> results, String ipAddress, String deviceId) {
+		var timestamp = Instant.now();
+		var events = new ArrayList<AuditEvent>(results.size());
+		for (var result : results.entrySet()) {
+			var event = new VaultKeyRetrievedEvent();
+			event.setTimestamp(timestamp);
+			event.setRetrievedBy(retrievedBy);
+			event.setVaultId(result.getKey());
+			event.setResult(result.getValue());
+			event.setIpAddress(ipAddress);
+			event.setDeviceId(deviceId);
+			events.add(event);
+		}
+		logAll(timestamp, events);
 	}
 
 	public void logVaultMemberAdded(String addedBy, UUID vaultId, String authorityId, VaultAccess.Role role) {
@@ -102,7 +161,39 @@ public class EventLogger {
 		event.setVaultId(vaultId);
 		event.setAuthorityId(authorityId);
 		event.setRole(role);
-		auditEventRepository.persist(event);
+		log(event);
+	}
+
+	/**
+	 * Logs multiple members being added to or updated in a vault, writing all events as a batch.
+	 *
+	 * @param changedBy The user changing the members
+	 * @param vaultId   The vault
+	 * @param added     The role per added authority
+	 * @param updated   The new role per updated authority
+	 */
+	public void logVaultMembersChanged(String changedBy, UUID vaultId, Map<String, VaultAccess.Role> added, Map<String, VaultAccess.Role> updated) {
+		var timestamp = Instant.now();
+		var events = new ArrayList<AuditEvent>(added.size() + updated.size());
+		added.forEach((authorityId, role) -> {
+			var event = new VaultMemberAddedEvent();
+			event.setTimestamp(timestamp);
+			event.setAddedBy(changedBy);
+			event.setVaultId(vaultId);
+			event.setAuthorityId(authorityId);
+			event.setRole(role);
+			events.add(event);
+		});
+		updated.forEach((authorityId, role) -> {
+			var event = new VaultMemberUpdatedEvent();
+			event.setTimestamp(timestamp);
+			event.setUpdatedBy(changedBy);
+			event.setVaultId(vaultId);
+			event.setAuthorityId(authorityId);
+			event.setRole(role);
+			events.add(event);
+		});
+		logAll(timestamp, events);
 	}
 
 	public void logVaultMemberRemoved(String removedBy, UUID vaultId, String authorityId) {
@@ -111,7 +202,7 @@ public class EventLogger {
 		event.setRemovedBy(removedBy);
 		event.setVaultId(vaultId);
 		event.setAuthorityId(authorityId);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logVaultMemberUpdated(String updatedBy, UUID vaultId, String authorityId, VaultAccess.Role role) {
@@ -121,7 +212,7 @@ public class EventLogger {
 		event.setVaultId(vaultId);
 		event.setAuthorityId(authorityId);
 		event.setRole(role);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logWotSettingUpdated(String updatedBy, int wotIdVerifyLen, int wotMaxDepth) {
@@ -130,7 +221,7 @@ public class EventLogger {
 		event.setWotIdVerifyLen(wotIdVerifyLen);
 		event.setWotMaxDepth(wotMaxDepth);
 		event.setUpdatedBy(updatedBy);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	public void logWotIdSigned(String userId, String signerId, String signerKey, String signature) {
@@ -140,7 +231,7 @@ public class EventLogger {
 		event.setSignerId(signerId);
 		event.setSignerKey(signerKey);
 		event.setSignature(signature);
-		auditEventRepository.persist(event);
+		log(event);
 	}
 
 	//legacy
@@ -149,6 +240,23 @@ public class EventLogger {
 		event.setTimestamp(Instant.now());
 		event.setClaimedBy(claimedBy);
 		event.setVaultId(vaultId);
+		log(event);
+	}
+
+	@WithSpan
+	void log(AuditEvent event) {
 		auditEventRepository.persist(event);
+		auditEventRollupRepository.increment(event);
+		auditEventNotifier.publish(List.of(event.getId()));
+		auditEventPersisted.fire(event); // observers may use TransactionPhase.AFTER_SUCCESS to only see committed events
+	}
+
+	@WithSpan
+	void logAll(Instant timestamp, List<AuditEvent> events) {
+		var ids = auditEventRepository.nextIds(events.size()); // one round trip instead of one per event
+		AuditEventIdGenerator.withReservedIds(ids, () -> auditEventRepository.persist(events));
+		auditEventNotifier.publish(ids);
+		auditEventRollupRepository.incrementAll(timestamp, events.stream().collect(Collectors.groupingBy(AuditEventRollup.Dimensions::of, Collectors.counting())));
+		events.forEach(auditEventPersisted::fire);
 	}
 }
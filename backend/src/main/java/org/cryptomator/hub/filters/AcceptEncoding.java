@@ -0,0 +1,29 @@
+package org.cryptomator.hub.filters;
+
+import java.util.Arrays;
+
+/**
+ * Parses the <code>Accept-Encoding</code> request header.
+ */
+class AcceptEncoding {
+
+	private AcceptEncoding() {
+	}
+
+	/**
+	 * Checks whether the given content coding is acceptable, i.e. listed and not excluded via <code>q=0</code>.
+	 *
+	 * @param acceptEncoding The value of the <code>Accept-Encoding</code> header, may be <code>null</code>
+	 * @param coding The content coding, e.g. <code>gzip</code>
+	 * @return <code>true</code> if the client accepts responses using the given coding
+	 */
+	static boolean accepts(String acceptEncoding, String coding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		return Arrays.stream(acceptEncoding.split(",")).map(String::trim).anyMatch(entry -> {
+			var parts = entry.split(";", 2);
+			return parts[0].trim().equalsIgnoreCase(coding) && !(parts.length == 2 && parts[1].replace(" ", "").matches("q=0(\\.0*)?"));
+		});
+	}
+}
@@ -1,5 +1,7 @@
 package org.cryptomator.hub.filters;
 
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
@@ -13,6 +15,7 @@ import org.cryptomator.hub.license.LicenseHolder;
  * Applied to all methods annotated with {@link ActiveLicense}.
  */
 @Provider
+@ApplicationScoped
 @ActiveLicense
 public class ActiveLicenseFilter implements ContainerRequestFilter {
 
@@ -20,6 +23,7 @@ public class ActiveLicenseFilter implements ContainerRequestFilter {
 	LicenseHolder license;
 
 	@Override
+	@WithSpan
 	public void filter(ContainerRequestContext requestContext) {
 		if (license.isExpired()) {
 			var response = Response.status(Response.Status.PAYMENT_REQUIRED).build();
@@ -0,0 +1,19 @@
+package org.cryptomator.hub.filters;
+
+import jakarta.ws.rs.NameBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to add the {@link DefaultCacheControlFilter} response filter to annotated service.
+ * <p>
+ * Meant for resources excluded from the <code>quarkus.http.filter.api</code> cache filter, because they set their own Cache-Control on some responses.
+ */
+@NameBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface DefaultCacheControl {
+}
@@ -0,0 +1,29 @@
+package org.cryptomator.hub.filters;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Response filter which adds the same Cache-Control header as the <code>quarkus.http.filter.api</code> cache filter, unless the response already has one.
+ * This covers error responses (e.g. 403 or 404) and any other response not setting its own Cache-Control.
+ * <p>
+ * Applied to all methods annotated with {@link DefaultCacheControl}.
+ */
+@Provider
+@ApplicationScoped
+@DefaultCacheControl
+public class DefaultCacheControlFilter implements ContainerResponseFilter {
+
+	static final String NO_CACHE = "no-cache, no-store, must-revalidate";
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		if (!responseContext.getHeaders().containsKey(HttpHeaders.CACHE_CONTROL)) {
+			responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+		}
+	}
+}
@@ -4,114 +4,113 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.ServletOutputStream;
-import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.cryptomator.hub.http.Fingerprint;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Replaces occurences of <code>&lt;base href="/"&gt;</code> with the corresponding configuration value from <code>hub.public-root-path</code>.
+ * Serves the frontend's index.html with occurences of <code>&lt;base href="/"&gt;</code> replaced by the corresponding configuration value from <code>hub.public-root-path</code>.
+ * <p>
+ * The rewritten document is computed once and served from memory, gzipped if supported by the client.
  */
 public class FrontendRootPathFilter extends HttpFilter {
 
+	private static final String INDEX_HTML = "/index.html";
+
 	@Inject
 	@ConfigProperty(name = "hub.public-root-path", defaultValue = "")
 	Provider<String> publicRootPath;
 
+	private volatile IndexHtml indexHtml;
+
 	@Override
 	protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
-		var capturedResponse = new CapturingResponseWrapper(res);
-		chain.doFilter(req, capturedResponse);
-		String content = capturedResponse.getCaptureAsString(); // This uses response character encoding.
-		String replacedContent = content.replace("<base href=\"/\"/>", "<base href=\"%s\"/>".formatted(publicRootPath.get()));
-		res.setContentLength(replacedContent.length());
-		res.getWriter().write(replacedContent);
-		res.getWriter().flush();
-	}
-
-	// Taken from https://stackoverflow.com/a/23381235/4014509
-	private static class CapturingResponseWrapper extends HttpServletResponseWrapper {
-
-		private final ByteArrayOutputStream capture;
-		private ServletOutputStream output;
-		private PrintWriter writer;
-
-		public CapturingResponseWrapper(HttpServletResponse response) {
-			super(response);
-			capture = new ByteArrayOutputStream(response.getBufferSize());
+		var index = getIndexHtml(req);
+		if (index == null || !("GET".equals(req.getMethod()) || "HEAD".equals(req.getMethod()))) {
+			chain.doFilter(req, res);
+			return;
 		}
 
-		@Override
-		public ServletOutputStream getOutputStream() throws IOException {
-			if (output == null) {
-				output = new ServletOutputStream() {
-					@Override
-					public boolean isReady() {
-						return true;
-					}
-
-					@Override
-					public void setWriteListener(WriteListener writeListener) {
-						// no-op
-					}
-
-					@Override
-					public void write(int b) {
-						capture.write(b);
-					}
-
-					@Override
-					public void flush() throws IOException {
-						capture.flush();
-					}
+		res.setHeader("Vary", "Accept-Encoding");
+		if (index.matches(req.getHeader("If-None-Match"))) {
+			res.setHeader("ETag", index.etag());
+			res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
 
-					@Override
-					public void close() throws IOException {
-						capture.close();
-					}
-				};
-			}
-			return output;
+		byte[] body;
+		if (AcceptEncoding.accepts(req.getHeader("Accept-Encoding"), "gzip")) {
+			body = index.gzipped();
+			res.setHeader("Content-Encoding", "gzip");
+			res.setHeader("ETag", index.gzippedEtag());
+		} else {
+			body = index.content();
+			res.setHeader("ETag", index.etag());
+		}
+		res.setContentType("text/html;charset=UTF-8");
+		res.setContentLength(body.length);
+		if ("GET".equals(req.getMethod())) {
+			res.getOutputStream().write(body);
 		}
+	}
 
-		@Override
-		public PrintWriter getWriter() throws IOException {
-			if (writer == null) {
-				writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+	private IndexHtml getIndexHtml(HttpServletRequest req) throws IOException {
+		var index = indexHtml;
+		if (index == null) {
+			try (var in = req.getServletContext().getResourceAsStream(INDEX_HTML)) {
+				if (in == null) {
+					return null; // frontend not included in this build
+				}
+				// computing it twice in case of concurrent first requests is harmless:
+				index = IndexHtml.of(in.readAllBytes(), publicRootPath.get());
+				indexHtml = index;
 			}
-			return writer;
 		}
+		return index;
+	}
 
-		@Override
-		public void flushBuffer() throws IOException {
-			if (writer != null) {
-				writer.flush();
-			} else if (output != null) {
-				output.flush();
-			}
+	/**
+	 * The rewritten index.html along with its gzipped variant. Each variant has its own strong ETag.
+	 */
+	//visible for testing
+	record IndexHtml(byte[] content, byte[] gzipped, String etag, String gzippedEtag) {
+
+		static IndexHtml of(byte[] original, String publicRootPath) {
+			var content = new String(original, StandardCharsets.UTF_8)
+					.replace("<base href=\"/\"/>", "<base href=\"%s\"/>".formatted(publicRootPath))
+					.getBytes(StandardCharsets.UTF_8);
+			var hash = Fingerprint.of(content);
+			return new IndexHtml(content, gzip(content), "\"" + hash + "\"", "\"" + hash + "-gzip\"");
 		}
 
-		public byte[] getCaptureAsBytes() throws IOException {
-			if (writer != null) {
-				writer.close();
-			} else if (output != null) {
-				output.close();
+		/**
+		 * Checks the <code>If-None-Match</code> header against both variants. A client that cached either variant has the current version.
+		 */
+		boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null) {
+				return false;
 			}
-
-			return capture.toByteArray();
+			return Arrays.stream(ifNoneMatch.split(",")).map(String::trim).map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+					.anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals(gzippedEtag));
 		}
 
-		public String getCaptureAsString() throws IOException {
-			return new String(getCaptureAsBytes(), getCharacterEncoding());
+		private static byte[] gzip(byte[] content) {
+			var out = new ByteArrayOutputStream(content.length);
+			try (var gzip = new GZIPOutputStream(out)) {
+				gzip.write(content);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Writing to memory failed", e);
+			}
+			return out.toByteArray();
 		}
-
 	}
 }
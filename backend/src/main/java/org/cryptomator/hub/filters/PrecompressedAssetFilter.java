@@ -0,0 +1,112 @@
+package org.cryptomator.hub.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves brotli or gzip compressed variants of frontend assets, which are created during the frontend build (e.g. <code>main.js.br</code> next to <code>main.js</code>).
+ * Falls back to the uncompressed asset, if the client doesn't accept any of the available variants. Nothing is compressed on the fly.
+ */
+public class PrecompressedAssetFilter extends HttpFilter {
+
+	/**
+	 * Supported content codings in order of preference.
+	 */
+	private static final List<Coding> CODINGS = List.of(new Coding("br", ".br"), new Coding("gzip", ".gz"));
+	private static final long MISSING = -1L;
+
+	/**
+	 * Sizes of precompressed variants by path or {@value MISSING}. Assets don't change during runtime, so this is never invalidated.
+	 * Only variants of existing assets are cached, so the size of this map is bounded by the build output, regardless of what clients request.
+	 */
+	//visible for testing
+	final Map<String, Long> variantSizes = new ConcurrentHashMap<>();
+
+	@Override
+	protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
+		if (!"GET".equals(req.getMethod()) && !"HEAD".equals(req.getMethod())) {
+			chain.doFilter(req, res);
+			return;
+		}
+
+		var ctx = req.getServletContext();
+		var path = req.getServletPath() + Objects.requireNonNullElse(req.getPathInfo(), "");
+		var acceptEncoding = req.getHeader("Accept-Encoding");
+		var hasVariants = false;
+		Boolean assetExists = null;
+		for (var coding : CODINGS) {
+			var variantPath = path + coding.extension();
+			var size = variantSizes.get(variantPath);
+			if (size == null) {
+				size = sizeOf(ctx, variantPath);
+				if (size == MISSING && assetExists == null) {
+					assetExists = exists(ctx, path);
+				}
+				if (size != MISSING || assetExists) {
+					variantSizes.put(variantPath, size);
+				}
+			}
+			if (size == MISSING) {
+				continue;
+			}
+			hasVariants = true;
+			if (AcceptEncoding.accepts(acceptEncoding, coding.name())) {
+				serve(req, res, path, variantPath, size, coding);
+				return;
+			}
+		}
+		if (hasVariants) {
+			res.setHeader("Vary", "Accept-Encoding");
+		}
+		chain.doFilter(req, res);
+	}
+
+	private void serve(HttpServletRequest req, HttpServletResponse res, String path, String variantPath, long size, Coding coding) throws IOException {
+		var ctx = req.getServletContext();
+		var contentType = ctx.getMimeType(path);
+		if (contentType != null) {
+			res.setContentType(contentType);
+		}
+		res.setHeader("Vary", "Accept-Encoding");
+		res.setHeader("Content-Encoding", coding.name());
+		res.setContentLengthLong(size);
+		if ("GET".equals(req.getMethod())) {
+			try (var in = ctx.getResourceAsStream(variantPath)) {
+				in.transferTo(res.getOutputStream());
+			}
+		}
+	}
+
+	private static boolean exists(ServletContext ctx, String path) {
+		try {
+			return ctx.getResource(path) != null;
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+
+	//visible for testing
+	static long sizeOf(ServletContext ctx, String path) {
+		try (var in = ctx.getResourceAsStream(path)) {
+			return in == null ? MISSING : in.transferTo(OutputStream.nullOutputStream());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read " + path, e);
+		}
+	}
+
+	private record Coding(String name, String extension) {
+	}
+}
@@ -1,5 +1,7 @@
 package org.cryptomator.hub.filters;
 
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotAuthorizedException;
@@ -24,6 +26,7 @@ import java.util.stream.Collectors;
  * Applied to all methods annotated with {@link VaultRole}.
  */
 @Provider
+@ApplicationScoped
 @VaultRole
 public class VaultRoleFilter implements ContainerRequestFilter {
 
@@ -40,6 +43,7 @@ public class VaultRoleFilter implements ContainerRequestFilter {
 	ResourceInfo resourceInfo;
 
 	@Override
+	@WithSpan
 	public void filter(ContainerRequestContext requestContext) throws NotFoundException, ForbiddenException, NotAuthorizedException {
 		var annotation = resourceInfo.getResourceMethod().getAnnotation(VaultRole.class);
 		var vaultIdStr = requestContext.getUriInfo().getPathParameters().getFirst(annotation.vaultIdParam());
@@ -0,0 +1,28 @@
+package org.cryptomator.hub.http;
+
+import io.quarkus.vertx.http.HttpServerOptionsCustomizer;
+import io.vertx.core.http.HttpServerOptions;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Skips compression of small responses, for which the gzip overhead outweighs the savings.
+ */
+@ApplicationScoped
+public class CompressionCustomizer implements HttpServerOptionsCustomizer {
+
+	@Inject
+	@ConfigProperty(name = "hub.http.compression-threshold", defaultValue = "1024")
+	int compressionThreshold;
+
+	@Override
+	public void customizeHttpServer(HttpServerOptions options) {
+		options.setCompressionContentSizeThreshold(compressionThreshold);
+	}
+
+	@Override
+	public void customizeHttpsServer(HttpServerOptions options) {
+		options.setCompressionContentSizeThreshold(compressionThreshold);
+	}
+}
@@ -0,0 +1,57 @@
+package org.cryptomator.hub.http;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Short SHA-256 based fingerprints, used as entity tags, cache-busting hashes and sync tokens.
+ * <p>
+ * Fingerprints are truncated to 128 bits. They detect changes, but must not be relied on for security.
+ */
+public final class Fingerprint {
+
+	private static final int LENGTH = 16;
+
+	private Fingerprint() {
+	}
+
+	/**
+	 * @param content The content to fingerprint
+	 * @return 32 hex digits
+	 */
+	public static String of(byte[] content) {
+		var digest = sha256();
+		digest.update(content);
+		return hex(digest);
+	}
+
+	/**
+	 * Fingerprints the {@link String#valueOf(Object) string representations} of the given values, each followed by a zero byte,
+	 * so that e.g. <code>("ab", "c")</code> and <code>("a", "bc")</code> yield different fingerprints.
+	 *
+	 * @param values The values to fingerprint
+	 * @return 32 hex digits
+	 */
+	public static String ofValues(Object... values) {
+		var digest = sha256();
+		for (var value : values) {
+			digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		return hex(digest);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every implementation of the Java platform is required to support SHA-256.", e);
+		}
+	}
+
+	private static String hex(MessageDigest digest) {
+		return HexFormat.of().formatHex(digest.digest(), 0, LENGTH);
+	}
+}
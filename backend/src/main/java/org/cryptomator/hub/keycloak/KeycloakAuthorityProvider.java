@@ -1,5 +1,6 @@
 package org.cryptomator.hub.keycloak;
 
+import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -27,6 +28,7 @@ public class KeycloakAuthorityProvider {
 	@ConfigProperty(name = "hub.keycloak.realm")
 	String keycloakRealm;
 
+	@WithSpan
 	public List<KeycloakUserDto> users() {
 		return users(keycloak.realm(keycloakRealm));
 	}
@@ -72,6 +74,7 @@ public class KeycloakAuthorityProvider {
 		}
 	}
 
+	@WithSpan
 	public List<KeycloakGroupDto> groups() {
 		return groups(keycloak.realm(keycloakRealm));
 	}
@@ -1,5 +1,7 @@
 package org.cryptomator.hub.keycloak;
 
+import io.micrometer.core.annotation.Timed;
+import io.quarkus.quartz.Nonconcurrent;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -24,7 +26,9 @@ public class KeycloakAuthorityPuller {
 	@Inject
 	KeycloakAuthorityProvider remoteUserProvider;
 
-	@Scheduled(every = "{hub.keycloak.syncer-period}")
+	@Scheduled(identity = "keycloak-authority-sync", every = "{hub.keycloak.syncer-period}")
+	@Nonconcurrent // cluster-wide, unlike ConcurrentExecution.SKIP
+	@Timed(value = "hub.keycloak.sync", description = "Duration of syncing users and groups from Keycloak")
 	void sync() {
 		var keycloakGroups = remoteUserProvider.groups().stream().collect(Collectors.toMap(KeycloakGroupDto::id, Function.identity()));
 		var keycloakUsers = remoteUserProvider.users().stream().collect(Collectors.toMap(KeycloakUserDto::id, Function.identity()));
@@ -133,7 +137,8 @@ public class KeycloakAuthorityPuller {
 		}
 	}
 
-	private <T> Set<T> diff(Set<T> base, Set<T> difference) {
+	//visible for testing
+	<T> Set<T> diff(Set<T> base, Set<T> difference) {
 		var result = new HashSet<>(base);
 		result.removeAll(difference);
 		return result;
@@ -0,0 +1,126 @@
+package org.cryptomator.hub.keycloak;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.keycloak.admin.client.Keycloak;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the version of the Keycloak server, which changes only when Keycloak gets upgraded.
+ * <p>
+ * Once known, the cached version is returned immediately, even if it is older than <code>hub.keycloak.version-cache.ttl</code>.
+ * In that case, a single refresh is started in the background (stale-while-revalidate). If Keycloak fails to respond, the last known
+ * version is kept and fetching is retried after <code>hub.keycloak.version-cache.retry-interval</code>.
+ * <p>
+ * Only the very first lookup waits for Keycloak, and no longer than <code>hub.keycloak.version-cache.initial-timeout</code>.
+ */
+@ApplicationScoped
+public class KeycloakVersionCache {
+
+	private static final Logger LOG = Logger.getLogger(KeycloakVersionCache.class);
+
+	@Inject
+	Keycloak keycloak;
+
+	@ConfigProperty(name = "hub.keycloak.version-cache.ttl", defaultValue = "PT10M")
+	Duration ttl;
+
+	@ConfigProperty(name = "hub.keycloak.version-cache.retry-interval", defaultValue = "PT30S")
+	Duration retryInterval;
+
+	@ConfigProperty(name = "hub.keycloak.version-cache.initial-timeout", defaultValue = "PT1S")
+	Duration initialTimeout;
+
+	//visible for testing
+	LongSupplier nanoClock = System::nanoTime;
+
+	//visible for testing
+	Executor executor = task -> Thread.ofVirtual().name("keycloak-version-refresh").start(task);
+
+	private volatile Entry entry;
+	private final AtomicReference<CompletableFuture<Entry>> pendingRefresh = new AtomicReference<>();
+
+	/**
+	 * Returns the Keycloak version without waiting for Keycloak, unless the version has never been fetched before.
+	 *
+	 * @return The Keycloak version or <code>null</code> if it is unknown
+	 */
+	public String getVersion() {
+		var current = entry;
+		if (current == null) {
+			return awaitInitialVersion();
+		}
+		if (nanoClock.getAsLong() - current.expiresAt() >= 0) {
+			refresh();
+		}
+		return current.version();
+	}
+
+	private String awaitInitialVersion() {
+		try {
+			return refresh().get(initialTimeout.toMillis(), TimeUnit.MILLISECONDS).version();
+		} catch (TimeoutException e) {
+			LOG.debug("Keycloak did not report its version in time. Continuing in background.");
+			return null;
+		} catch (ExecutionException e) {
+			return null; // already logged by refresh
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Starts fetching the version from Keycloak, unless a fetch is already in progress.
+	 *
+	 * @return The pending refresh
+	 */
+	//visible for testing
+	CompletableFuture<Entry> refresh() {
+		var refresh = new CompletableFuture<Entry>();
+		var ongoing = pendingRefresh.compareAndExchange(null, refresh);
+		if (ongoing != null) {
+			return ongoing;
+		}
+		executor.execute(() -> {
+			try {
+				var fetched = new Entry(fetchVersion(), nanoClock.getAsLong() + ttl.toNanos());
+				entry = fetched;
+				refresh.complete(fetched);
+			} catch (RuntimeException e) {
+				LOG.warn("Failed to fetch Keycloak version", e);
+				var previous = entry;
+				entry = new Entry(previous != null ? previous.version() : null, nanoClock.getAsLong() + retryInterval.toNanos());
+				refresh.completeExceptionally(e);
+			} finally {
+				pendingRefresh.set(null);
+			}
+		});
+		return refresh;
+	}
+
+	private String fetchVersion() {
+		var keycloakSystemInfo = keycloak.serverInfo().getInfo().getSystemInfo();
+		return keycloakSystemInfo != null ? keycloakSystemInfo.getVersion() : null;
+	}
+
+	/**
+	 * A cached version.
+	 *
+	 * @param version   The Keycloak version, may be <code>null</code> if unknown
+	 * @param expiresAt {@link System#nanoTime() nano time} after which the version is refreshed
+	 */
+	//visible for testing
+	record Entry(String version, long expiresAt) {
+	}
+}
@@ -3,12 +3,16 @@ package org.cryptomator.hub.license;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import io.quarkus.quartz.Nonconcurrent;
 import io.quarkus.scheduler.Scheduled;
 import io.quarkus.scheduler.ScheduledExecution;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.cryptomator.hub.cluster.SettingsChangeNotifier;
+import org.cryptomator.hub.cluster.SettingsChanged;
 import org.cryptomator.hub.entities.Settings;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
@@ -20,7 +24,7 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
+import java.util.Date;
 import java.util.Optional;
 
 @ApplicationScoped
@@ -48,9 +52,15 @@ public class LicenseHolder {
 	RandomMinuteSleeper randomMinuteSleeper;
 	@Inject
 	Settings.Repository settingsRepo;
+	@Inject
+	SettingsChangeNotifier settingsChangeNotifier;
 
 	private static final Logger LOG = Logger.getLogger(LicenseHolder.class);
-	private DecodedJWT license;
+
+	/**
+	 * Snapshot of the current license, {@code null} if no license is set. Replaced as a whole, whenever the license changes.
+	 */
+	private volatile License license;
 
 	/**
 	 * Loads the license from the database or from init props, if present
@@ -68,22 +78,24 @@ public class LicenseHolder {
 	@Transactional
 	void validateOrResetExistingLicense(Settings settings) {
 		try {
-			this.license = licenseValidator.validate(settings.getLicenseKey(), settings.getHubId());
+			this.license = License.of(licenseValidator.validate(settings.getLicenseKey(), settings.getHubId()));
 		} catch (JWTVerificationException e) {
 			LOG.warn("License in database is invalid or does not match hubId", e);
 			LOG.warn("Deleting license entry. Please add the license over the REST API again.");
 			settings.setLicenseKey(null);
-			settingsRepo.persistAndFlush(settings);
+			settingsRepo.update(settings);
+			settingsChangeNotifier.publish();
 		}
 	}
 
 	@Transactional
 	void validateAndApplyInitLicense(Settings settings, String initialLicenseToken, String initialHubId) {
 		try {
-			this.license = licenseValidator.validate(initialLicenseToken, initialHubId);
+			this.license = License.of(licenseValidator.validate(initialLicenseToken, initialHubId));
 			settings.setLicenseKey(initialLicenseToken);
 			settings.setHubId(initialHubId);
-			settingsRepo.persistAndFlush(settings);
+			settingsRepo.update(settings);
+			settingsChangeNotifier.publish();
 		} catch (JWTVerificationException e) {
 			LOG.warn("Provided initial license is invalid or does not match inital hubId.", e);
 		}
@@ -98,15 +110,34 @@ public class LicenseHolder {
 	@Transactional
 	public void set(String token) throws JWTVerificationException {
 		var settings = settingsRepo.get();
-		this.license = licenseValidator.validate(token, settings.getHubId());
+		this.license = License.of(licenseValidator.validate(token, settings.getHubId()));
 		settings.setLicenseKey(token);
-		settingsRepo.persistAndFlush(settings);
+		settingsRepo.update(settings);
+		settingsChangeNotifier.publish();
+	}
+
+	/**
+	 * Reloads the license from the database, after it has been changed by another Hub instance.
+	 */
+	@Transactional
+	void onSettingsChanged(@Observes SettingsChanged event) {
+		var settings = settingsRepo.get();
+		if (settings.getLicenseKey() == null || settings.getHubId() == null) {
+			this.license = null;
+			return;
+		}
+		try {
+			this.license = License.of(licenseValidator.validate(settings.getLicenseKey(), settings.getHubId()));
+		} catch (JWTVerificationException e) {
+			LOG.warn("License changed by other instance is invalid or does not match hubId", e);
+		}
 	}
 
 	/**
 	 * Attempts to refresh the Hub licence every day between 01:00:00 and 02:00:00 AM UTC if claim refreshURL is present.
 	 */
-	@Scheduled(cron = "0 0 1 * * ?", timeZone = "UTC", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+	@Scheduled(identity = "license-refresh", cron = "0 0 1 * * ?", timeZone = "UTC")
+	@Nonconcurrent // cluster-wide, unlike ConcurrentExecution.SKIP
 	void refreshLicense() throws InterruptedException {
 		if (get() != null) {
 			randomMinuteSleeper.sleep(); // add random sleep between [0,59]min to reduce infrastructure load
@@ -147,7 +178,8 @@ public class LicenseHolder {
 	}
 
 	public DecodedJWT get() {
-		return license;
+		var l = license;
+		return l != null ? l.jwt() : null;
 	}
 
 	/**
@@ -165,9 +197,8 @@ public class LicenseHolder {
 	 * @return {@code true}, if the license _is not nul and expired_. Otherwise false.
 	 */
 	public boolean isExpired() {
-		return Optional.ofNullable(license) //
-				.map(l -> l.getExpiresAt().toInstant().isBefore(Instant.now())) //
-				.orElse(false);
+		var l = license;
+		return l != null && l.expiresAtMillis() < System.currentTimeMillis();
 	}
 
 	/**
@@ -176,10 +207,17 @@ public class LicenseHolder {
 	 * @return Number of seats of the license, if license is not null. Otherwise {@value SELFHOSTED_NOLICENSE_SEATS}.
 	 */
 	public long getSeats() {
-		return Optional.ofNullable(license) //
-				.map(l -> l.getClaim("seats")) //
-				.map(Claim::asLong) //
-				.orElseGet(this::seatsOnNotExisingLicense);
+		var l = license;
+		return l != null && l.seats() != License.NO_SEATS_CLAIM ? l.seats() : seatsOnNotExisingLicense();
+	}
+
+	/**
+	 * Gets the value of the {@code Hub-Subscription-State} header. Expiration is not taken into account.
+	 *
+	 * @return {@code ACTIVE}, if the license is set. Otherwise {@code INACTIVE}.
+	 */
+	public String getSubscriptionState() {
+		return license != null ? "ACTIVE" : "INACTIVE";
 	}
 
 	//visible for testing
@@ -195,6 +233,24 @@ public class LicenseHolder {
 		return managedInstance;
 	}
 
+	/**
+	 * Values of a verified license token, derived once when the license is set.
+	 *
+	 * @param jwt             The verified license token
+	 * @param seats           Value of the {@code seats} claim, {@value NO_SEATS_CLAIM} if absent
+	 * @param expiresAtMillis Expiration as epoch millis, {@link Long#MAX_VALUE} if the token does not expire
+	 */
+	record License(DecodedJWT jwt, long seats, long expiresAtMillis) {
+
+		static final long NO_SEATS_CLAIM = -1L;
+
+		static License of(DecodedJWT jwt) {
+			var seats = Optional.ofNullable(jwt.getClaim("seats")).map(Claim::asLong).orElse(NO_SEATS_CLAIM);
+			var expiresAt = Optional.ofNullable(jwt.getExpiresAt()).map(Date::getTime).orElse(Long.MAX_VALUE);
+			return new License(jwt, seats, expiresAt);
+		}
+	}
+
 	static class LicenseRefreshFailedException extends RuntimeException {
 		final int statusCode;
 		final String body;
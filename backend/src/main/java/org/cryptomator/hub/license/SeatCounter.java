@@ -0,0 +1,139 @@
+package org.cryptomator.hub.license;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.cryptomator.hub.entities.EffectiveVaultAccess;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Counts occupied seats for read-only purposes, such as displaying the license usage or gating unlocks.
+ * <p>
+ * Concurrent requests for the same count share a single query (single-flight), and its result is reused for up to
+ * <code>hub.license.seat-count.max-age</code>. This keeps login waves, where every client unlocks its vaults at once, from running the
+ * same aggregate over <code>effective_vault_access</code> hundreds of times.
+ * <p>
+ * The shared query runs on the connection of the caller that starts it. Callers waiting for it hold connections as well, so if the
+ * query needed another one, concurrent callers exceeding the pool size would starve it. Callers without a transaction therefore never start
+ * a shared query, but count on their own. Callers with a transaction must not have uncommitted changes affecting the count.
+ * <p>
+ * Operations that may occupy additional seats must not use this, but count within their own transaction after
+ * {@link EffectiveVaultAccess.Repository#lockSeats() locking the seats}.
+ */
+@ApplicationScoped
+public class SeatCounter {
+
+	@Inject
+	EffectiveVaultAccess.Repository effectiveVaultAccessRepo;
+
+	@ConfigProperty(name = "hub.license.seat-count.max-age", defaultValue = "PT1S")
+	Duration maxAge;
+
+	//visible for testing
+	LongSupplier nanoClock = System::nanoTime;
+
+	//visible for testing
+	BooleanSupplier transactionActive = QuarkusTransaction::isActive;
+
+	//visible for testing
+	ToLongFunction<LongSupplier> newTransaction = query -> QuarkusTransaction.requiringNew().call(query::getAsLong);
+
+	private final SharedCount seatOccupyingUsers = new SharedCount(() -> effectiveVaultAccessRepo.countSeatOccupyingUsers());
+	private final SharedCount seatOccupyingUsersWithAccessToken = new SharedCount(() -> effectiveVaultAccessRepo.countSeatOccupyingUsersWithAccessToken());
+
+	/**
+	 * @return Number of users occupying a seat
+	 * @see EffectiveVaultAccess.Repository#countSeatOccupyingUsers()
+	 */
+	public long countSeatOccupyingUsers() {
+		return seatOccupyingUsers.get();
+	}
+
+	/**
+	 * @return Number of users occupying a seat and having an access token
+	 * @see EffectiveVaultAccess.Repository#countSeatOccupyingUsersWithAccessToken()
+	 */
+	public long countSeatOccupyingUsersWithAccessToken() {
+		return seatOccupyingUsersWithAccessToken.get();
+	}
+
+	private class SharedCount {
+
+		private final LongSupplier query;
+		private final AtomicReference<CompletableFuture<Entry>> pendingQuery = new AtomicReference<>();
+		private volatile Entry latest;
+
+		SharedCount(LongSupplier query) {
+			this.query = query;
+		}
+
+		long get() {
+			var current = latest;
+			if (current != null && nanoClock.getAsLong() - current.countedAt() < maxAge.toNanos()) {
+				return current.count();
+			}
+			if (!transactionActive.getAsBoolean()) {
+				return countAlone();
+			}
+			var future = new CompletableFuture<Entry>();
+			var ongoing = pendingQuery.compareAndExchange(null, future);
+			if (ongoing != null) {
+				return await(ongoing).count();
+			}
+			try {
+				var counted = remember(query.getAsLong()); // READ COMMITTED, so the caller's transaction counts the same as a new one would
+				future.complete(counted);
+				return counted.count();
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+				throw e;
+			} finally {
+				pendingQuery.set(null);
+			}
+		}
+
+		/**
+		 * Joins an ongoing query or counts in a new transaction, without letting anyone wait for the connection it needs.
+		 */
+		private long countAlone() {
+			var ongoing = pendingQuery.get();
+			if (ongoing != null) {
+				return await(ongoing).count();
+			}
+			return remember(newTransaction.applyAsLong(query)).count();
+		}
+
+		private Entry remember(long count) {
+			var counted = new Entry(count, nanoClock.getAsLong());
+			latest = counted;
+			return counted;
+		}
+
+		private Entry await(CompletableFuture<Entry> ongoing) {
+			try {
+				return ongoing.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException cause) {
+					throw cause;
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * @param count     The counted seats
+	 * @param countedAt {@link System#nanoTime() nano time} when the query completed
+	 */
+	private record Entry(long count, long countedAt) {
+	}
+
+}
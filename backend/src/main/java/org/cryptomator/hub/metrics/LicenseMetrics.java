@@ -0,0 +1,36 @@
+package org.cryptomator.hub.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.cryptomator.hub.license.LicenseHolder;
+import org.cryptomator.hub.license.SeatCounter;
+
+/**
+ * Exposes the number of licensed seats and the number of seats in use.
+ */
+@Singleton
+public class LicenseMetrics implements MeterBinder {
+
+	@Inject
+	LicenseHolder license;
+	@Inject
+	SeatCounter seatCounter;
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("hub.license.seats", license, LicenseHolder::getSeats)
+				.description("Seats available according to the current license")
+				.register(registry);
+		Gauge.builder("hub.license.seats.used", this, LicenseMetrics::countUsedSeats)
+				.description("Users occupying a seat")
+				.register(registry);
+	}
+
+	//visible for testing
+	double countUsedSeats() {
+		return seatCounter.countSeatOccupyingUsers();
+	}
+}
@@ -0,0 +1,63 @@
+package org.cryptomator.hub.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.persistence.NamedQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes execution time and returned rows of every {@link NamedQuery} declared on our entities, tagged with the query's name.
+ * <p>
+ * Values are read from Hibernate's statistics, which requires <code>quarkus.hibernate-orm.metrics.enabled</code>.
+ */
+@Singleton
+public class NamedQueryMetrics implements MeterBinder {
+
+	static final String TIMER_NAME = "hub.db.named.query";
+	static final String ROWS_NAME = "hub.db.named.query.rows";
+
+	@Inject
+	SessionFactory sessionFactory;
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		var statistics = sessionFactory.getStatistics();
+		var entityClasses = sessionFactory.getMetamodel().getEntities().stream().<Class<?>>map(e -> e.getJavaType()).toList();
+		namedQueries(entityClasses).forEach((name, query) -> bind(registry, statistics, name, query));
+	}
+
+	//visible for testing
+	static Map<String, String> namedQueries(Iterable<Class<?>> entityClasses) {
+		var result = new TreeMap<String, String>();
+		for (var entityClass : entityClasses) {
+			Arrays.stream(entityClass.getAnnotationsByType(NamedQuery.class)).forEach(q -> result.put(q.name(), q.query()));
+		}
+		return result;
+	}
+
+	private static void bind(MeterRegistry registry, Statistics statistics, String name, String query) {
+		FunctionTimer.builder(TIMER_NAME, statistics, s -> stats(s, query).getExecutionCount(), s -> stats(s, query).getExecutionTotalTime(), TimeUnit.MILLISECONDS)
+				.description("Execution time of named queries")
+				.tag("query", name)
+				.register(registry);
+		FunctionCounter.builder(ROWS_NAME, statistics, s -> stats(s, query).getExecutionRowCount())
+				.description("Rows returned by named queries")
+				.tag("query", name)
+				.register(registry);
+	}
+
+	private static QueryStatistics stats(Statistics statistics, String query) {
+		return statistics.getQueryStatistics(query);
+	}
+}
@@ -0,0 +1,22 @@
+package org.cryptomator.hub.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.cryptomator.hub.entities.events.VaultKeyRetrievedEvent;
+
+/**
+ * Counts vault key retrievals by result. Only committed events are counted, so retrievals rolled back along with their transaction are not.
+ */
+@ApplicationScoped
+public class VaultKeyRetrievalMetrics {
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	void onVaultKeyRetrieved(@Observes(during = TransactionPhase.AFTER_SUCCESS) VaultKeyRetrievedEvent event) {
+		meterRegistry.counter("hub.vault.key.retrievals", "result", event.getResult().name()).increment();
+	}
+}
@@ -0,0 +1,19 @@
+package org.cryptomator.hub.tracing;
+
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to create an OpenTelemetry span for each invocation of the annotated bean's methods, named after class and method.
+ * <p>
+ * Use {@link io.opentelemetry.instrumentation.annotations.WithSpan @WithSpan} to trace single methods instead.
+ */
+@InterceptorBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Traced {
+}
@@ -0,0 +1,41 @@
+package org.cryptomator.hub.tracing;
+
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.lang.reflect.Method;
+
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class TracedInterceptor {
+
+	@Inject
+	Tracer tracer;
+
+	@AroundInvoke
+	Object trace(InvocationContext context) throws Exception {
+		var span = tracer.spanBuilder(spanName(context.getMethod())).startSpan();
+		try (var scope = span.makeCurrent()) {
+			return context.proceed();
+		} catch (Exception e) {
+			span.recordException(e);
+			span.setStatus(StatusCode.ERROR);
+			throw e;
+		} finally {
+			span.end();
+		}
+	}
+
+	//visible for testing
+	static String spanName(Method method) {
+		var className = method.getDeclaringClass().getName();
+		var simpleName = className.substring(className.lastIndexOf('.') + 1).replace('$', '.');
+		return simpleName + "." + method.getName();
+	}
+}
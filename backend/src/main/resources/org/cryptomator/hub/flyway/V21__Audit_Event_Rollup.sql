@@ -0,0 +1,53 @@
+-- flattens all audit events to the dimensions used for statistics. "user_id" is the acting user.
+CREATE VIEW "audit_event_dimension" ("id", "timestamp", "type", "vault_id", "user_id", "device_id", "result") AS
+SELECT ae."id", ae."timestamp", ae."type",
+	COALESCE(vc."vault_id", vu."vault_id", vag."vault_id", vkr."vault_id", vma."vault_id", vmr."vault_id", vmu."vault_id", voc."vault_id"),
+	COALESCE(vc."created_by", vu."updated_by", vag."granted_by", vkr."retrieved_by", vma."added_by", vmr."removed_by", vmu."updated_by", voc."claimed_by",
+		dreg."registered_by", drem."removed_by", uar."reset_by", ukc."changed_by", usc."changed_by", swu."updated_by", swi."signer_id"),
+	COALESCE(vkr."device_id", dreg."device_id", drem."device_id"),
+	vkr."result"
+FROM "audit_event" ae
+LEFT JOIN "audit_event_vault_create" vc ON vc."id" = ae."id"
+LEFT JOIN "audit_event_vault_update" vu ON vu."id" = ae."id"
+LEFT JOIN "audit_event_vault_access_grant" vag ON vag."id" = ae."id"
+LEFT JOIN "audit_event_vault_key_retrieve" vkr ON vkr."id" = ae."id"
+LEFT JOIN "audit_event_vault_member_add" vma ON vma."id" = ae."id"
+LEFT JOIN "audit_event_vault_member_remove" vmr ON vmr."id" = ae."id"
+LEFT JOIN "audit_event_vault_member_update" vmu ON vmu."id" = ae."id"
+LEFT JOIN "audit_event_vault_ownership_claim" voc ON voc."id" = ae."id"
+LEFT JOIN "audit_event_device_register" dreg ON dreg."id" = ae."id"
+LEFT JOIN "audit_event_device_remove" drem ON drem."id" = ae."id"
+LEFT JOIN "audit_event_user_account_reset" uar ON uar."id" = ae."id"
+LEFT JOIN "audit_event_user_keys_change" ukc ON ukc."id" = ae."id"
+LEFT JOIN "audit_event_user_setupcode_change" usc ON usc."id" = ae."id"
+LEFT JOIN "audit_event_setting_wot_update" swu ON swu."id" = ae."id"
+LEFT JOIN "audit_event_sign_wot_id" swi ON swi."id" = ae."id";
+
+-- hourly event counts, incrementally maintained by the application whenever an audit event is logged
+CREATE TABLE "audit_event_rollup"
+(
+	"bucket"    TIMESTAMP WITH TIME ZONE NOT NULL,
+	"type"      VARCHAR(50) NOT NULL,
+	"vault_id"  UUID,
+	"user_id"   VARCHAR(255) COLLATE "C",
+	"device_id" VARCHAR(255) COLLATE "C",
+	"result"    VARCHAR(50),
+	"count"     BIGINT NOT NULL,
+	CONSTRAINT "AUDIT_EVENT_ROLLUP_CHK_COUNT" CHECK ("count" > 0)
+);
+
+-- must match the conflict target used by the upsert in AuditEventRollup.Repository
+CREATE UNIQUE INDEX "AUDIT_EVENT_ROLLUP_UNIQUE" ON "audit_event_rollup" (
+	"bucket", "type",
+	COALESCE("vault_id", '00000000-0000-0000-0000-000000000000'),
+	COALESCE("user_id", ''),
+	COALESCE("device_id", ''),
+	COALESCE("result", '')
+);
+CREATE INDEX "AUDIT_EVENT_ROLLUP_IDX_VAULT" ON "audit_event_rollup" ("vault_id", "bucket") WHERE "vault_id" IS NOT NULL;
+CREATE INDEX "AUDIT_EVENT_ROLLUP_IDX_USER" ON "audit_event_rollup" ("user_id", "bucket") WHERE "user_id" IS NOT NULL;
+
+INSERT INTO "audit_event_rollup" ("bucket", "type", "vault_id", "user_id", "device_id", "result", "count")
+SELECT date_trunc('hour', "timestamp", 'UTC'), "type", "vault_id", "user_id", "device_id", "result", count(*)
+FROM "audit_event_dimension"
+GROUP BY 1, 2, 3, 4, 5, 6;
@@ -0,0 +1,25 @@
+-- stamps each row with the ID of the last transaction that inserted or updated it, allowing clients to fetch only what changed since their last sync.
+-- transaction IDs are used instead of a sequence, since all transactions below pg_snapshot_xmin(pg_current_snapshot()) are known to be completed,
+-- so no change that is still in flight can end up with a version lower than the one handed to the client.
+CREATE FUNCTION "set_sync_version"() RETURNS TRIGGER AS $$
+BEGIN
+	NEW."sync_version" := CAST(CAST(pg_current_xact_id() AS TEXT) AS BIGINT);
+	RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE "authority" ADD COLUMN "sync_version" BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "user_details" ADD COLUMN "sync_version" BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "group_membership" ADD COLUMN "sync_version" BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "vault" ADD COLUMN "sync_version" BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "vault_access" ADD COLUMN "sync_version" BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "device" ADD COLUMN "sync_version" BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE "access_token" ADD COLUMN "sync_version" BIGINT NOT NULL DEFAULT 0;
+
+CREATE TRIGGER "AUTHORITY_SYNC_VERSION" BEFORE INSERT OR UPDATE ON "authority" FOR EACH ROW EXECUTE FUNCTION "set_sync_version"();
+CREATE TRIGGER "USER_DETAILS_SYNC_VERSION" BEFORE INSERT OR UPDATE ON "user_details" FOR EACH ROW EXECUTE FUNCTION "set_sync_version"();
+CREATE TRIGGER "GROUP_MEMBERSHIP_SYNC_VERSION" BEFORE INSERT OR UPDATE ON "group_membership" FOR EACH ROW EXECUTE FUNCTION "set_sync_version"();
+CREATE TRIGGER "VAULT_SYNC_VERSION" BEFORE INSERT OR UPDATE ON "vault" FOR EACH ROW EXECUTE FUNCTION "set_sync_version"();
+CREATE TRIGGER "VAULT_ACCESS_SYNC_VERSION" BEFORE INSERT OR UPDATE ON "vault_access" FOR EACH ROW EXECUTE FUNCTION "set_sync_version"();
+CREATE TRIGGER "DEVICE_SYNC_VERSION" BEFORE INSERT OR UPDATE ON "device" FOR EACH ROW EXECUTE FUNCTION "set_sync_version"();
+CREATE TRIGGER "ACCESS_TOKEN_SYNC_VERSION" BEFORE INSERT OR UPDATE ON "access_token" FOR EACH ROW EXECUTE FUNCTION "set_sync_version"();
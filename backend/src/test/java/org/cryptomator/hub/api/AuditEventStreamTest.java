@@ -0,0 +1,170 @@
+package org.cryptomator.hub.api;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AuditEventStreamTest {
+
+	private final SseEventSink sink = Mockito.mock(SseEventSink.class);
+	private final Sse sse = Mockito.mock(Sse.class);
+	private final OutboundSseEvent.Builder builder = Mockito.mock(OutboundSseEvent.Builder.class, Mockito.RETURNS_SELF);
+	private final List<String> sentIds = new ArrayList<>();
+	private CompletableFuture<?> pendingSend = CompletableFuture.completedFuture(null);
+	private long now = 1_000L;
+	private AuditEventStream stream;
+
+	@BeforeEach
+	public void setup() {
+		stream = new AuditEventStream();
+		stream.lookback = Duration.ofNanos(100);
+		stream.nanoClock = () -> now;
+		Mockito.doReturn(builder).when(sse).newEventBuilder();
+		Mockito.doAnswer(invocation -> {
+			sentIds.add(invocation.getArgument(0));
+			return builder;
+		}).when(builder).id(Mockito.anyString());
+		Mockito.doAnswer(invocation -> pendingSend).when(sink).send(Mockito.any());
+	}
+
+	private static AuditLogResource.AuditEventDto event(long id) {
+		return new AuditLogResource.UserAccountResetEventDto(id, Instant.EPOCH, "USER_ACCOUNT_RESET", "user1");
+	}
+
+	private static AuditEventStream.Cursor after(long id) {
+		return new AuditEventStream.Cursor(id, List.of());
+	}
+
+	@Test
+	@DisplayName("events are buffered until the subscriber is activated")
+	public void testBufferUntilActivated() {
+		var subscriber = stream.subscribe(sink, sse);
+
+		subscriber.offer(event(3));
+		Assertions.assertTrue(sentIds.isEmpty());
+
+		subscriber.activate(after(2), List.of(), false);
+		Assertions.assertEquals(List.of("3"), sentIds);
+	}
+
+	@Test
+	@DisplayName("replayed events are sent first and not duplicated by live events")
+	public void testReplayBeforeLiveEvents() {
+		var subscriber = stream.subscribe(sink, sse);
+
+		subscriber.offer(event(12));
+		subscriber.offer(event(13));
+		subscriber.activate(after(10), List.of(event(11), event(12)), false);
+		subscriber.offer(event(12));
+		subscriber.offer(event(14));
+
+		Assertions.assertEquals(List.of("11", "12", "13", "14"), sentIds);
+	}
+
+	@Test
+	@DisplayName("truncated replay closes the stream after the replayed events")
+	public void testTruncatedReplay() {
+		var subscriber = stream.subscribe(sink, sse);
+
+		subscriber.offer(event(100));
+		subscriber.activate(after(0), List.of(event(1), event(2)), true);
+
+		Assertions.assertEquals(List.of("1", "2"), sentIds);
+		Mockito.verify(sink).close();
+		Assertions.assertEquals(0, stream.subscriberCount());
+	}
+
+	@Test
+	@DisplayName("event committed after an event with a higher id is still sent once")
+	public void testLateEvent() {
+		var subscriber = stream.subscribe(sink, sse);
+		subscriber.activate(after(10), List.of(), false);
+
+		subscriber.offer(event(13));
+		subscriber.offer(event(12));
+		subscriber.offer(event(12));
+		subscriber.offer(event(11));
+
+		Assertions.assertEquals(List.of("13:11,12", "13:11", "13"), sentIds);
+	}
+
+	@Test
+	@DisplayName("skipped ids are given up after the lookback")
+	public void testLookback() {
+		var subscriber = stream.subscribe(sink, sse);
+		subscriber.activate(after(10), List.of(), false);
+
+		subscriber.offer(event(12));
+		now += 101;
+		subscriber.offer(event(13));
+		subscriber.offer(event(11));
+
+		Assertions.assertEquals(List.of("12:11", "13"), sentIds);
+	}
+
+	@Test
+	@DisplayName("resuming from a cursor replays events committed late")
+	public void testResumeWithOpenIds() {
+		var subscriber = stream.subscribe(sink, sse);
+
+		subscriber.activate(AuditEventStream.Cursor.parse("13:9,11"), List.of(event(11), event(14)), false);
+		subscriber.offer(event(9));
+
+		Assertions.assertEquals(List.of("13:9", "14:9", "14"), sentIds);
+	}
+
+	@Test
+	@DisplayName("cursors are parsed from plain event ids or their own format")
+	public void testParseCursor() {
+		Assertions.assertEquals(after(42), AuditEventStream.Cursor.parse("42"));
+		Assertions.assertEquals(new AuditEventStream.Cursor(42, List.of(7L, 9L)), AuditEventStream.Cursor.parse("42:9,7"));
+		Assertions.assertEquals("42:7,9", AuditEventStream.Cursor.parse("42:9,7").toString());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AuditEventStream.Cursor.parse("foo"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AuditEventStream.Cursor.parse("42:"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AuditEventStream.Cursor.parse("42:43"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AuditEventStream.Cursor.parse("99999999999999999999"));
+	}
+
+	@Test
+	@DisplayName("slow subscribers get disconnected when exceeding their buffer")
+	public void testBufferOverflow() {
+		pendingSend = new CompletableFuture<>(); // first send never completes
+		var subscriber = stream.subscribe(sink, sse);
+		subscriber.activate(after(0), List.of(), false);
+
+		for (int i = 1; i <= AuditEventStream.BUFFER_SIZE + 1; i++) {
+			subscriber.offer(event(i));
+		}
+		Mockito.verify(sink, Mockito.never()).close();
+		Assertions.assertEquals(AuditEventStream.BUFFER_SIZE, subscriber.pending().size());
+
+		subscriber.offer(event(AuditEventStream.BUFFER_SIZE + 2));
+		Mockito.verify(sink).close();
+		Assertions.assertEquals(0, stream.subscriberCount());
+	}
+
+	@Test
+	@DisplayName("failed sends close the stream")
+	public void testSendFailure() {
+		pendingSend = CompletableFuture.failedFuture(new IllegalStateException("connection reset"));
+		var subscriber = stream.subscribe(sink, sse);
+		subscriber.activate(after(0), List.of(), false);
+
+		subscriber.offer(event(1));
+
+		Mockito.verify(sink).close();
+		Assertions.assertEquals(0, stream.subscriberCount());
+	}
+
+}
@@ -68,4 +68,72 @@ public class AuditLogResourceIT {
 				.then().statusCode(403);
 	}
 
+	@Test
+	@TestSecurity(user = "Admin", roles = {"admin"})
+	@DisplayName("As admin, GET /auditlog/stats?startDate=2020-02-20T00:00:00.000Z&endDate=2020-02-21T00:00:00.000Z&interval=day&groupBy=type returns 200 with counts per type")
+	public void testGetAuditLogStatsGroupedByType() {
+		given().param("startDate", "2020-02-20T00:00:00.000Z")
+				.param("endDate", "2020-02-21T00:00:00.000Z")
+				.param("interval", "day")
+				.param("groupBy", "type")
+				.when().get("/auditlog/stats")
+				.then().statusCode(200)
+				.body("find { it.key == 'VAULT_CREATE' }.count", comparesEqualTo(3))
+				.body("find { it.key == 'VAULT_ACCESS_GRANT' }.count", comparesEqualTo(4))
+				.body("find { it.key == 'VAULT_KEY_RETRIEVE' }.count", comparesEqualTo(2))
+				.body("start", Matchers.everyItem(Matchers.startsWith("2020-02-20T00:00:00")));
+	}
+
+	@Test
+	@TestSecurity(user = "Admin", roles = {"admin"})
+	@DisplayName("As admin, GET /auditlog/stats?...&type=VAULT_KEY_RETRIEVE&result=UNAUTHORIZED&groupBy=user returns 200 with failed unlocks per user")
+	public void testGetAuditLogStatsFailedUnlocksPerUser() {
+		given().param("startDate", "2020-02-20T00:00:00.000Z")
+				.param("endDate", "2020-02-21T00:00:00.000Z")
+				.param("type", "VAULT_KEY_RETRIEVE")
+				.param("result", "UNAUTHORIZED")
+				.param("groupBy", "user")
+				.when().get("/auditlog/stats")
+				.then().statusCode(200)
+				.body("key", Matchers.contains("user2"))
+				.body("count", Matchers.contains(1))
+				.body("start", Matchers.contains(Matchers.startsWith("2020-02-20T20:00:00")));
+	}
+
+	@Test
+	@TestSecurity(user = "Admin", roles = {"admin"})
+	@DisplayName("As admin, GET /auditlog/stats?...&groupBy=foo returns 400")
+	public void testGetAuditLogStatsInvalidGroupBy() {
+		given().param("startDate", "2020-02-20T00:00:00.000Z")
+				.param("endDate", "2020-02-21T00:00:00.000Z")
+				.param("groupBy", "foo")
+				.when().get("/auditlog/stats")
+				.then().statusCode(400);
+	}
+
+	@Test
+	@TestSecurity(user = "User", roles = {"user"})
+	@DisplayName("As user, GET /auditlog/stats returns 403")
+	public void testGetAuditLogStatsAsUser() {
+		when().get("/auditlog/stats?startDate=2020-02-20T00:00:00.000Z&endDate=2020-02-21T00:00:00.000Z")
+				.then().statusCode(403);
+	}
+
+	@Test
+	@TestSecurity(user = "User", roles = {"user"})
+	@DisplayName("As user, GET /auditlog/stream returns 403")
+	public void testStreamAuditLogAsUser() {
+		when().get("/auditlog/stream")
+				.then().statusCode(403);
+	}
+
+	@Test
+	@TestSecurity(user = "Admin", roles = {"admin"})
+	@DisplayName("As admin, GET /auditlog/stream?lastEventId=foo returns 400")
+	public void testStreamAuditLogInvalidLastEventId() {
+		given().param("lastEventId", "foo")
+				.when().get("/auditlog/stream")
+				.then().statusCode(400);
+	}
+
 }
@@ -1,9 +1,13 @@
 package org.cryptomator.hub.api;
 
+import io.quarkus.oidc.OidcConfigurationMetadata;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mockito;
 
 public class ConfigResourceTest {
 
@@ -12,6 +16,37 @@ public class ConfigResourceTest {
 	@BeforeEach
 	public void init() {
 		this.configResource = new ConfigResource();
+		configResource.keycloakPublicUrl = "https://public.example.com/kc";
+		configResource.keycloakRealm = "cryptomator";
+		configResource.keycloakClientIdHub = "cryptomatorhub";
+		configResource.keycloakClientIdCryptomator = "cryptomator";
+		configResource.internalRealmUrl = "http://keycloak:8080/kc/realms/cryptomator/";
+		configResource.oidcConfData = Mockito.mock(OidcConfigurationMetadata.class);
+		Mockito.when(configResource.oidcConfData.getAuthorizationUri()).thenReturn("http://keycloak:8080/kc/realms/cryptomator/protocol/openid-connect/auth");
+		Mockito.when(configResource.oidcConfData.getTokenUri()).thenReturn("http://keycloak:8080/kc/realms/cryptomator/protocol/openid-connect/token");
+	}
+
+	@Test
+	@DisplayName("static config uses public Keycloak URLs")
+	public void testComputeStaticConfig() {
+		var config = configResource.computeStaticConfig();
+
+		Assertions.assertEquals("https://public.example.com/kc/realms/cryptomator/protocol/openid-connect/auth", config.dto().authEndpoint());
+		Assertions.assertEquals("https://public.example.com/kc/realms/cryptomator/protocol/openid-connect/token", config.dto().tokenEndpoint());
+		Assertions.assertNull(config.dto().serverTime());
+		Assertions.assertTrue(config.etag().isWeak());
+	}
+
+	@Test
+	@DisplayName("ETag is stable for same config and changes with config")
+	public void testEtag() {
+		var etag1 = configResource.computeStaticConfig().etag();
+		var etag2 = configResource.computeStaticConfig().etag();
+		configResource.keycloakClientIdHub = "otherclient";
+		var etag3 = configResource.computeStaticConfig().etag();
+
+		Assertions.assertEquals(etag1, etag2);
+		Assertions.assertNotEquals(etag1, etag3);
 	}
 
 	@ParameterizedTest
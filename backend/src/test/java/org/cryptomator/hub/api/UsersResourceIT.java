@@ -10,7 +10,9 @@ import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import jakarta.inject.Inject;
 import org.cryptomator.hub.license.LicenseHolder;
+import org.cryptomator.hub.rollback.DBRollbackAfter;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.MethodOrderer;
@@ -29,13 +31,16 @@ import java.time.format.DateTimeFormatter;
 
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
+import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.text.IsEqualIgnoringCase.equalToIgnoringCase;
 
 @QuarkusTest
 @DisplayName("Resource /users")
@@ -67,6 +72,30 @@ public class UsersResourceIT {
 					.then().statusCode(201);
 		}
 
+		@Test
+		@DisplayName("PUT /users/me without changes does not write")
+		public void testSyncMeUnchanged() throws SQLException {
+			when().put("/users/me")
+					.then().statusCode(201);
+			var versionBefore = userSyncVersion();
+
+			when().put("/users/me")
+					.then().statusCode(201);
+			var versionAfter = userSyncVersion();
+
+			Assertions.assertEquals(versionBefore, versionAfter);
+		}
+
+		private long userSyncVersion() throws SQLException {
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				var rs = s.executeQuery("""
+						SELECT "a"."sync_version" + "u"."sync_version" FROM "authority" "a" INNER JOIN "user_details" "u" ON "u"."id" = "a"."id" WHERE "a"."id" = 'user1'
+						""");
+				rs.next();
+				return rs.getLong(1);
+			}
+		}
+
 		@Test
 		@DisplayName("GET /users/me returns 200")
 		public void testGetMe1() {
@@ -76,6 +105,61 @@ public class UsersResourceIT {
 					.body("devices.flatten()", empty());
 		}
 
+		@Test
+		@DisplayName("GET /users/me with matching If-None-Match returns 304")
+		public void testGetMeNotModified() {
+			var etag = when().get("/users/me?withDevices=true")
+					.then().statusCode(200)
+					.extract().header("ETag");
+
+			given().header("If-None-Match", etag)
+					.when().get("/users/me?withDevices=true")
+					.then().statusCode(304);
+			given().header("If-None-Match", etag)
+					.when().get("/users/me")
+					.then().statusCode(200);
+		}
+
+		@Test
+		@DBRollbackAfter
+		@DisplayName("GET /users/me?withDevices=true returns 200 with new ETag after a device changed")
+		public void testGetMeChangedDeviceETag() throws SQLException {
+			var etag = when().get("/users/me?withDevices=true")
+					.then().statusCode(200)
+					.extract().header("ETag");
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						UPDATE "device" SET "name" = 'Renamed Device 1' WHERE "id" = 'device1';
+						""");
+			}
+
+			given().header("If-None-Match", etag)
+					.when().get("/users/me?withDevices=true")
+					.then().statusCode(200)
+					.header("ETag", not(etag))
+					.body("devices.find { it.id == 'device1' }.name", is("Renamed Device 1"));
+		}
+
+		@Test
+		@DBRollbackAfter
+		@DisplayName("GET /users returns 200 with new ETag after a user changed")
+		public void testGetAllChangedUserETag() throws SQLException {
+			var etag = when().get("/users")
+					.then().statusCode(200)
+					.extract().header("ETag");
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						UPDATE "authority" SET "name" = 'Renamed User 2' WHERE "id" = 'user2';
+						""");
+			}
+
+			given().header("If-None-Match", etag)
+					.when().get("/users")
+					.then().statusCode(200)
+					.header("ETag", not(etag))
+					.body("find { it.id == 'user2' }.name", is("Renamed User 2"));
+		}
+
 		@Test
 		@DisplayName("GET /users/me?withDevices=true returns 200")
 		public void testGetMe2() throws SQLException {
@@ -169,6 +253,86 @@ public class UsersResourceIT {
 					.then().statusCode(400);
 		}
 
+		@Test
+		@DisplayName("GET /users/me/changes returns full state")
+		public void testGetChanges1() {
+			when().get("/users/me/changes")
+					.then().statusCode(200)
+					.body("syncToken", not(nullValue()))
+					.body("user.id", is("user1"))
+					.body("vaults.id", hasItems(equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100001111"), equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100002222")))
+					.body("vaultIds", hasItems(equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100001111"), equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100002222")))
+					.body("devices.id", hasItems("device1"))
+					.body("deviceIds", hasItems("device1"));
+		}
+
+		@Test
+		@DisplayName("GET /users/me/changes?since=... returns 304 if nothing changed")
+		public void testGetChanges2() {
+			var syncToken = when().get("/users/me/changes")
+					.then().statusCode(200)
+					.extract().path("syncToken");
+
+			given().queryParam("since", syncToken)
+					.when().get("/users/me/changes")
+					.then().statusCode(304);
+		}
+
+		@Test
+		@DisplayName("GET /users/me/changes?since=... returns changed vaults only")
+		public void testGetChanges3() throws SQLException {
+			var syncToken = when().get("/users/me/changes")
+					.then().statusCode(200)
+					.extract().path("syncToken");
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						UPDATE "vault" SET "description" = "description" WHERE "id" = '7E57C0DE-0000-4000-8000-000100002222';
+						""");
+			}
+
+			given().queryParam("since", syncToken)
+					.when().get("/users/me/changes")
+					.then().statusCode(200)
+					.body("user", nullValue())
+					.body("vaults.id", contains(equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100002222")))
+					.body("vaultIds", hasItems(equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100001111"), equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100002222")))
+					.body("devices", empty());
+		}
+
+		@Test
+		@DBRollbackAfter
+		@DisplayName("GET /users/me/changes?since=... reveals vaults that are no longer accessible")
+		public void testGetChangesAfterAccessLoss() throws SQLException {
+			String syncToken = when().get("/users/me/changes")
+					.then().statusCode(200)
+					.extract().path("syncToken");
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						DELETE FROM "group_membership" WHERE "group_id" = 'group1' AND "member_id" = 'user1';
+						""");
+			}
+
+			String newSyncToken = given().queryParam("since", syncToken)
+					.when().get("/users/me/changes")
+					.then().statusCode(200)
+					.body("vaultIds", hasItem(equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100001111")))
+					.body("vaultIds", not(hasItem(equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100002222"))))
+					.extract().path("syncToken");
+			Assertions.assertNotEquals(syncToken, newSyncToken);
+
+			given().queryParam("since", newSyncToken)
+					.when().get("/users/me/changes")
+					.then().statusCode(304);
+		}
+
+		@Test
+		@DisplayName("GET /users/me/changes?since=foo returns 400")
+		public void testGetChanges4() {
+			given().queryParam("since", "foo")
+					.when().get("/users/me/changes")
+					.then().statusCode(400);
+		}
+
 	}
 
 	@Nested
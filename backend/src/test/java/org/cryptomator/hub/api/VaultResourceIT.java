@@ -45,8 +45,12 @@ import java.security.spec.PKCS8EncodedKeySpec;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
 
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
@@ -54,6 +58,8 @@ import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.nullValue;
@@ -127,6 +133,89 @@ public class VaultResourceIT {
 					.body("id", equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100001111"));
 		}
 
+		@Test
+		@DisplayName("GET /vaults/7E57C0DE-0000-4000-8000-000100001111 with matching If-None-Match returns 304")
+		public void testGetVault1NotModified() {
+			var etag = when().get("/vaults/{vaultId}", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.header("Cache-Control", containsString("private"))
+					.extract().header("ETag");
+
+			given().header("If-None-Match", etag)
+					.when().get("/vaults/{vaultId}", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(304)
+					.header("ETag", etag);
+		}
+
+		@Test
+		@DisplayName("GET /vaults/7E57C0DE-0000-4000-8000-000100001111 with outdated If-None-Match returns 200")
+		public void testGetVault1Modified() {
+			given().header("If-None-Match", "W/\"outdated\"")
+					.when().get("/vaults/{vaultId}", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.body("id", equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100001111"));
+		}
+
+		@Test
+		@DBRollbackAfter
+		@DisplayName("GET /vaults/7E57C0DE-0000-4000-8000-000100001111 returns 200 with new ETag after the vault changed")
+		public void testGetVault1ChangedETag() throws SQLException {
+			var etag = when().get("/vaults/{vaultId}", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.extract().header("ETag");
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						UPDATE "vault" SET "description" = 'changed' WHERE "id" = '7E57C0DE-0000-4000-8000-000100001111';
+						""");
+			}
+
+			given().header("If-None-Match", etag)
+					.when().get("/vaults/{vaultId}", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.header("ETag", not(etag))
+					.body("description", is("changed"));
+		}
+
+		@Test
+		@DBRollbackAfter
+		@DisplayName("GET /vaults/7E57C0DE-0000-4000-8000-000100001111/members returns 200 with new ETag after a member's role changed")
+		public void testGetMembersChangedRoleETag() throws SQLException {
+			var etag = when().get("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.extract().header("ETag");
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						UPDATE "vault_access" SET "role" = 'OWNER' WHERE "vault_id" = '7E57C0DE-0000-4000-8000-000100001111' AND "authority_id" = 'user2';
+						""");
+			}
+
+			given().header("If-None-Match", etag)
+					.when().get("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.header("ETag", not(etag))
+					.body("find { it.id == 'user2' }.role", is("OWNER"));
+		}
+
+		@Test
+		@DBRollbackAfter
+		@DisplayName("GET /vaults/7E57C0DE-0000-4000-8000-000100001111/members returns 200 with new ETag after a member's details changed")
+		public void testGetMembersChangedUserETag() throws SQLException {
+			var etag = when().get("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.extract().header("ETag");
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						UPDATE "authority" SET "name" = 'Renamed User 2' WHERE "id" = 'user2';
+						""");
+			}
+
+			given().header("If-None-Match", etag)
+					.when().get("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.header("ETag", not(etag))
+					.body("find { it.id == 'user2' }.name", is("Renamed User 2"));
+		}
+
 		@Test
 		@DisplayName("GET /vaults/nonExistingVault returns 404")
 		public void testGetVault2() {
@@ -196,6 +285,46 @@ public class VaultResourceIT {
 					.then().statusCode(200);
 		}
 
+		@Test
+		@DisplayName("POST /vaults/access-tokens/batch returns a result for each vault")
+		public void testUnlockBatch() {
+			given().contentType(ContentType.JSON)
+					.body(List.of("7E57C0DE-0000-4000-8000-000100001111", "7E57C0DE-0000-4000-8000-000100002222", "7E57C0DE-0000-4000-8000-00010000AAAA", "7E57C0DE-0000-4000-8000-BADBADBADBAD"))
+					.when().post("/vaults/access-tokens/batch")
+					.then().statusCode(200)
+					.header("Hub-Subscription-State", not(nullValue()))
+					.body("vaultId", contains(equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100001111"), equalToIgnoringCase("7E57C0DE-0000-4000-8000-000100002222"), equalToIgnoringCase("7E57C0DE-0000-4000-8000-00010000AAAA"), equalToIgnoringCase("7E57C0DE-0000-4000-8000-BADBADBADBAD")))
+					.body("status", contains(200, 200, 410, 404))
+					.body("accessToken", contains("jwe.jwe.jwe.vault1.user1", "jwe.jwe.jwe.vault2.user1", null, null));
+		}
+
+		@Test
+		@DisplayName("POST /vaults/access-tokens/batch with device ID stores all retrievals in audit log")
+		public void testUnlockBatchAuditLog() throws SQLException {
+			given().contentType(ContentType.JSON)
+					.header("HUB-DEVICE-ID", "batch123456789")
+					.body(List.of("7E57C0DE-0000-4000-8000-000100001111", "7E57C0DE-0000-4000-8000-000100002222"))
+					.when().post("/vaults/access-tokens/batch")
+					.then().statusCode(200);
+
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				var rs = s.executeQuery("""
+						SELECT COUNT(*) FROM "audit_event_vault_key_retrieve" WHERE "device_id" = 'batch123456789' AND "result" = 'SUCCESS';
+						""");
+				Assertions.assertTrue(rs.next());
+				Assertions.assertEquals(2, rs.getInt(1));
+			}
+		}
+
+		@Test
+		@DisplayName("POST /vaults/access-tokens/batch returns 400 for empty body")
+		public void testUnlockBatchEmpty() {
+			given().contentType(ContentType.JSON)
+					.body(List.of())
+					.when().post("/vaults/access-tokens/batch")
+					.then().statusCode(400);
+		}
+
 		@Nested
 		@DisplayName("legacy unlock")
 		@TestSecurity(user = "User Name 1", roles = {"user"})
@@ -261,6 +390,16 @@ public class VaultResourceIT {
 					.then().statusCode(449);
 		}
 
+		@Test
+		@DisplayName("POST /vaults/access-tokens/batch returns 449, because user2 is not initialized")
+		@DBRollbackBefore
+		public void testUnlockBatch() {
+			given().contentType(ContentType.JSON)
+					.body(List.of("7E57C0DE-0000-4000-8000-000100001111"))
+					.when().post("/vaults/access-tokens/batch")
+					.then().statusCode(449);
+		}
+
 		@Test
 		@DisplayName("PUT /vaults/7E57C0DE-0000-4000-8000-000100003333 returns 403 for missing role")
 		public void testCreateVaultWithMissingRole() {
@@ -674,6 +813,34 @@ public class VaultResourceIT {
 					.body("id", not(hasItems("group2")));
 		}
 
+		@Test
+		@Order(9)
+		@DisplayName("POST /vaults/7E57C0DE-0000-4000-8000-000100001111/members returns results per authority")
+		@DBRollbackAfter
+		public void addMembers() {
+			var body = Map.of("group2", "MEMBER", "user2", "OWNER", "group3000", "MEMBER");
+
+			given().contentType(ContentType.JSON).body(body)
+					.when().post("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.body("find { it.authorityId == 'group2' }.status", is(201))
+					.body("find { it.authorityId == 'user2' }.status", is(200))
+					.body("find { it.authorityId == 'group3000' }.status", is(404));
+			given().when().get("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(200)
+					.body("find { it.id == 'group2' }.role", is("MEMBER"))
+					.body("find { it.id == 'user2' }.role", is("OWNER"));
+		}
+
+		@Test
+		@Order(10)
+		@DisplayName("POST /vaults/7E57C0DE-0000-4000-8000-000100001111/members returns 400 for empty body")
+		public void addNoMembers() {
+			given().contentType(ContentType.JSON).body("{}")
+					.when().post("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(400);
+		}
+
 	}
 
 	@Nested
@@ -742,6 +909,18 @@ public class VaultResourceIT {
 					.then().statusCode(402);
 		}
 
+		@Test
+		@Order(1)
+		@DisplayName("POST /vaults/7E57C0DE-0000-4000-8000-000100001111/members returns 402 for [user91, user92, group91]")
+		public void addMembersExceedingSeats() {
+			Assumptions.assumeTrue(effectiveVaultAccessRepo.countSeatOccupyingUsers() == 2);
+			var body = Map.of("user91", "MEMBER", "user92", "MEMBER", "group91", "MEMBER");
+
+			given().contentType(ContentType.JSON).body(body)
+					.when().post("/vaults/{vaultId}/members", "7E57C0DE-0000-4000-8000-000100001111")
+					.then().statusCode(402);
+		}
+
 		@Test
 		@Order(1)
 		@DisplayName("PUT /vaults/7E57C0DE-0000-4000-8000-000100001111/groups/group91 returns 402")
@@ -861,6 +1040,74 @@ public class VaultResourceIT {
 
 	}
 
+	@Nested
+	@DisplayName("When adding users or unlocking concurrently")
+	@TestSecurity(user = "User Name 1", roles = {"user"})
+	@OidcSecurity(claims = {
+			@Claim(key = "sub", value = "user1")
+	})
+	public class ConcurrentSeatReservation {
+
+		private static final int PARALLEL_REQUESTS = 100;
+		private static final int LICENSED_SEATS = 5;
+
+		@Test
+		@DisplayName("100 parallel PUT /vaults/7E57C0DE-0000-4000-8000-000100001111/users/userSeatXX don't exceed 5 seats")
+		@DBRollbackAfter
+		public void addUsersConcurrently() throws SQLException, InterruptedException {
+			try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+				s.execute("""
+						INSERT INTO "authority" ("id", "type", "name") SELECT 'userSeat' || i, 'USER', 'Seat User ' || i FROM generate_series(1, %1$d) AS i;
+						INSERT INTO "user_details" ("id") SELECT 'userSeat' || i FROM generate_series(1, %1$d) AS i;
+						""".formatted(PARALLEL_REQUESTS));
+			}
+			var initiallyOccupiedSeats = effectiveVaultAccessRepo.countSeatOccupyingUsers();
+			Assumptions.assumeTrue(initiallyOccupiedSeats < LICENSED_SEATS);
+
+			var statusCodes = new ConcurrentLinkedQueue<Integer>();
+			var start = new CountDownLatch(1);
+			try (var executor = Executors.newFixedThreadPool(PARALLEL_REQUESTS)) {
+				for (int i = 1; i <= PARALLEL_REQUESTS; i++) {
+					var userId = "userSeat" + i;
+					executor.submit(() -> {
+						start.await();
+						statusCodes.add(given().when().put("/vaults/{vaultId}/users/{userId}", "7E57C0DE-0000-4000-8000-000100001111", userId).statusCode());
+						return null;
+					});
+				}
+				start.countDown();
+			} // waits for all requests to complete
+
+			var freeSeats = LICENSED_SEATS - initiallyOccupiedSeats;
+			Assertions.assertEquals(PARALLEL_REQUESTS, statusCodes.size());
+			Assertions.assertEquals(freeSeats, statusCodes.stream().filter(status -> status == 201).count());
+			Assertions.assertEquals(PARALLEL_REQUESTS - freeSeats, statusCodes.stream().filter(status -> status == 402).count());
+			Assertions.assertEquals(LICENSED_SEATS, effectiveVaultAccessRepo.countSeatOccupyingUsers());
+		}
+
+		@Test
+		@DisplayName("100 parallel GET /vaults/7E57C0DE-0000-4000-8000-000100001111/access-token succeed despite only 16 pooled connections")
+		@DBRollbackAfter
+		public void unlockConcurrently() throws InterruptedException {
+			var statusCodes = new ConcurrentLinkedQueue<Integer>();
+			var start = new CountDownLatch(1);
+			try (var executor = Executors.newFixedThreadPool(PARALLEL_REQUESTS)) {
+				for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+					executor.submit(() -> {
+						start.await();
+						statusCodes.add(given().when().get("/vaults/{vaultId}/access-token", "7E57C0DE-0000-4000-8000-000100001111").statusCode());
+						return null;
+					});
+				}
+				start.countDown();
+			} // waits for all requests to complete
+
+			Assertions.assertEquals(PARALLEL_REQUESTS, statusCodes.size());
+			Assertions.assertTrue(statusCodes.stream().allMatch(status -> status == 200), () -> "Unexpected status codes: " + statusCodes);
+		}
+
+	}
+
 	@Nested
 	@DisplayName("Claim Ownership")
 	@TestSecurity(user = "User Name 1", roles = {"user"})
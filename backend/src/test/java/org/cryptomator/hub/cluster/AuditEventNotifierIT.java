@@ -0,0 +1,64 @@
+package org.cryptomator.hub.cluster;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@QuarkusTest
+@DisplayName("Audit event notifications")
+public class AuditEventNotifierIT {
+
+	@Inject
+	AgroalDataSource dataSource;
+
+	@Inject
+	AuditEventNotifier notifier;
+
+	@Inject
+	AuditEventsCommittedRecorder recorder;
+
+	@BeforeEach
+	public void beforeEach() {
+		recorder.events.clear();
+	}
+
+	@Test
+	@DisplayName("notification from other instance fires AuditEventsCommitted within a second")
+	public void testNotificationFromOtherInstance() throws SQLException, InterruptedException {
+		try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+			s.execute("NOTIFY hub_audit_events, 'other-instance:4711,4712'");
+		}
+
+		var event = recorder.events.poll(1, TimeUnit.SECONDS);
+		Assertions.assertNotNull(event);
+		Assertions.assertEquals(List.of(4711L, 4712L), event.ids());
+	}
+
+	@Test
+	@DisplayName("notification is not sent if the transaction rolls back")
+	public void testRollback() throws InterruptedException {
+		QuarkusTransaction.requiringNew().run(() -> {
+			notifier.publish(List.of(4711L));
+			QuarkusTransaction.setRollbackOnly();
+		});
+
+		Assertions.assertNull(recorder.events.poll(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@DisplayName("own notification is ignored")
+	public void testOwnNotification() throws InterruptedException {
+		QuarkusTransaction.requiringNew().run(() -> notifier.publish(List.of(4711L)));
+
+		Assertions.assertNull(recorder.events.poll(2, TimeUnit.SECONDS));
+	}
+}
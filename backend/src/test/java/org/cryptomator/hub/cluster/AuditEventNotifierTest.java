@@ -0,0 +1,36 @@
+package org.cryptomator.hub.cluster;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.stream.LongStream;
+
+class AuditEventNotifierTest {
+
+	private final ClusterNotifications clusterNotifications = Mockito.mock(ClusterNotifications.class);
+
+	private AuditEventNotifier notifier;
+
+	@BeforeEach
+	void setUp() {
+		notifier = new AuditEventNotifier();
+		notifier.clusterNotifications = clusterNotifications;
+	}
+
+	@Test
+	@DisplayName("many ids are split into multiple notifications")
+	public void testChunking() {
+		var ids = LongStream.rangeClosed(1, 2 * AuditEventNotifier.MAX_IDS_PER_NOTIFICATION + 1).boxed().toList();
+
+		notifier.publish(ids);
+
+		var data = ArgumentCaptor.forClass(String.class);
+		Mockito.verify(clusterNotifications, Mockito.times(3)).publish(Mockito.eq(AuditEventNotifier.CHANNEL), data.capture());
+		Assertions.assertEquals(String.valueOf(ids.getLast()), data.getAllValues().getLast());
+		Assertions.assertTrue(data.getAllValues().getFirst().startsWith("1,2,3,"));
+	}
+}
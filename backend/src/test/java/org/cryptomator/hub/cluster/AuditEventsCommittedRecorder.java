@@ -0,0 +1,17 @@
+package org.cryptomator.hub.cluster;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+@ApplicationScoped
+public class AuditEventsCommittedRecorder {
+
+	final BlockingQueue<AuditEventsCommitted> events = new LinkedBlockingQueue<>();
+
+	void onAuditEventsCommitted(@Observes AuditEventsCommitted event) {
+		events.add(event);
+	}
+}
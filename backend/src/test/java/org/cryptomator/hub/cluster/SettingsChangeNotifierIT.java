@@ -0,0 +1,50 @@
+package org.cryptomator.hub.cluster;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+@QuarkusTest
+@DisplayName("Settings change notifications")
+public class SettingsChangeNotifierIT {
+
+	@Inject
+	AgroalDataSource dataSource;
+
+	@Inject
+	SettingsChangeNotifier notifier;
+
+	@Inject
+	SettingsChangedRecorder recorder;
+
+	@BeforeEach
+	public void beforeEach() {
+		recorder.events.clear();
+	}
+
+	@Test
+	@DisplayName("notification from other instance fires SettingsChanged within a second")
+	public void testNotificationFromOtherInstance() throws SQLException, InterruptedException {
+		try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+			s.execute("NOTIFY hub_settings_changed, 'other-instance'");
+		}
+
+		Assertions.assertNotNull(recorder.events.poll(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@DisplayName("own notification is ignored")
+	public void testOwnNotification() throws InterruptedException {
+		QuarkusTransaction.requiringNew().run(notifier::publish);
+
+		Assertions.assertNull(recorder.events.poll(2, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,17 @@
+package org.cryptomator.hub.cluster;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+@ApplicationScoped
+public class SettingsChangedRecorder {
+
+	final BlockingQueue<SettingsChanged> events = new LinkedBlockingQueue<>();
+
+	void onSettingsChanged(@Observes SettingsChanged event) {
+		events.add(event);
+	}
+}
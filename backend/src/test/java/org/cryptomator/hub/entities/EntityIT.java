@@ -1,15 +1,23 @@
 package org.cryptomator.hub.entities;
 
 import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.TestTransaction;
 import io.quarkus.test.junit.QuarkusTest;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import org.cryptomator.hub.cluster.SettingsChanged;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @QuarkusTest
 @DisplayName("Persistent Entities")
@@ -20,7 +28,13 @@ public class EntityIT {
 	@Inject
 	User.Repository userRepo;
 	@Inject
+	Vault.Repository vaultRepo;
+	@Inject
+	Settings.Repository settingsRepo;
+	@Inject
 	AgroalDataSource dataSource;
+	@Inject
+	Event<SettingsChanged> settingsChanged;
 
 	@Test
 	@TestTransaction
@@ -50,4 +64,119 @@ public class EntityIT {
 		Assertions.assertEquals("user1", token.getUser().getId());
 		Assertions.assertEquals("jwe.jwe.jwe.vault1.user1", token.getVaultKey());
 	}
-}
\ No newline at end of file
+
+	@Test
+	@TestTransaction
+	@DisplayName("Unlock info contains the vault key of a member")
+	public void testUnlockInfo() {
+		var info = accessTokenRepo.unlockInfo(UUID.fromString("7E57C0DE-0000-4000-8000-000100001111"), "user1");
+		Assertions.assertFalse(info.archived());
+		Assertions.assertTrue(info.userInitialized());
+		Assertions.assertEquals("jwe.jwe.jwe.vault1.user1", info.vaultKey());
+	}
+
+	@Test
+	@TestTransaction
+	@DisplayName("Unlock info is null for unknown vaults and users")
+	public void testUnlockInfoUnknown() {
+		Assertions.assertNull(accessTokenRepo.unlockInfo(UUID.fromString("7E57C0DE-0000-4000-8000-BADBADBADBAD"), "user1"));
+		Assertions.assertNull(accessTokenRepo.unlockInfo(UUID.fromString("7E57C0DE-0000-4000-8000-000100001111"), "nobody"));
+	}
+
+	@Test
+	@TestTransaction
+	@DisplayName("Unlock infos of multiple vaults are retrieved at once, omitting unknown vaults")
+	public void testUnlockInfos() {
+		var vault1 = UUID.fromString("7E57C0DE-0000-4000-8000-000100001111");
+		var vault2 = UUID.fromString("7E57C0DE-0000-4000-8000-000100002222");
+		var unknownVault = UUID.fromString("7E57C0DE-0000-4000-8000-BADBADBADBAD");
+
+		var infos = accessTokenRepo.unlockInfos(List.of(vault1, vault2, unknownVault), "user1");
+
+		Assertions.assertEquals(Set.of(vault1, vault2), infos.keySet());
+		Assertions.assertEquals("jwe.jwe.jwe.vault1.user1", infos.get(vault1).vaultKey());
+		Assertions.assertEquals("jwe.jwe.jwe.vault2.user1", infos.get(vault2).vaultKey());
+	}
+
+	@Test
+	@TestTransaction
+	@DisplayName("Access tokens are inserted or replaced at once")
+	public void testUpsertAccessTokens() {
+		var vault1 = UUID.fromString("7E57C0DE-0000-4000-8000-000100001111");
+		var vault2 = UUID.fromString("7E57C0DE-0000-4000-8000-000100002222");
+
+		accessTokenRepo.upsertAll("user2", Map.of(vault1, "jwe.jwe.jwe.vault1.user2.new", vault2, "jwe.jwe.jwe.vault2.user2.new"));
+
+		Assertions.assertEquals("jwe.jwe.jwe.vault1.user2.new", accessTokenRepo.findById(new AccessToken.AccessId("user2", vault1)).getVaultKey());
+		Assertions.assertEquals("jwe.jwe.jwe.vault2.user2.new", accessTokenRepo.findById(new AccessToken.AccessId("user2", vault2)).getVaultKey());
+	}
+
+	@Test
+	@TestTransaction
+	@DisplayName("Existing vault IDs are found among more IDs than fit into a single query")
+	public void testFindVaultIdsInLargeList() {
+		var vault1 = UUID.fromString("7E57C0DE-0000-4000-8000-000100001111");
+		var vault2 = UUID.fromString("7E57C0DE-0000-4000-8000-000100002222");
+		var ids = Stream.concat(Stream.generate(UUID::randomUUID).limit(70_000), Stream.of(vault1, vault2)).toList();
+
+		var found = vaultRepo.findIdsInList(ids).collect(Collectors.toSet());
+
+		Assertions.assertEquals(Set.of(vault1, vault2), found);
+	}
+
+	@Test
+	@DisplayName("Cached Settings are updated when the transaction commits")
+	public void testCachedSettingsWriteThrough() {
+		var original = settingsRepo.getCached();
+
+		QuarkusTransaction.requiringNew().run(() -> updateWotMaxDepth(original.wotMaxDepth() + 1));
+		var updated = settingsRepo.getCached();
+		QuarkusTransaction.requiringNew().run(() -> updateWotMaxDepth(original.wotMaxDepth()));
+
+		Assertions.assertEquals(original.wotMaxDepth() + 1, updated.wotMaxDepth());
+		Assertions.assertEquals(original, settingsRepo.getCached());
+	}
+
+	@Test
+	@DisplayName("Cached Settings are unchanged when the transaction rolls back")
+	public void testCachedSettingsRollback() {
+		var original = settingsRepo.getCached();
+
+		QuarkusTransaction.requiringNew().run(() -> {
+			updateWotMaxDepth(original.wotMaxDepth() + 1);
+			QuarkusTransaction.setRollbackOnly();
+		});
+
+		Assertions.assertEquals(original, settingsRepo.getCached());
+	}
+
+	@Test
+	@DisplayName("Cached Settings are reloaded when changed by another instance")
+	public void testCachedSettingsInvalidation() throws SQLException {
+		var original = settingsRepo.getCached();
+
+		try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+			s.execute("""
+					UPDATE "settings" SET "wot_id_verify_len" = "wot_id_verify_len" + 1 WHERE "id" = 0;
+					""");
+		}
+		var stale = settingsRepo.getCached();
+		settingsChanged.fire(new SettingsChanged());
+		var reloaded = settingsRepo.getCached();
+		try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+			s.execute("""
+					UPDATE "settings" SET "wot_id_verify_len" = "wot_id_verify_len" - 1 WHERE "id" = 0;
+					""");
+		}
+		settingsChanged.fire(new SettingsChanged());
+
+		Assertions.assertEquals(original, stale);
+		Assertions.assertEquals(original.wotIdVerifyLen() + 1, reloaded.wotIdVerifyLen());
+	}
+
+	private void updateWotMaxDepth(int wotMaxDepth) {
+		var settings = settingsRepo.get();
+		settings.setWotMaxDepth(wotMaxDepth);
+		settingsRepo.update(settings);
+	}
+}
@@ -0,0 +1,38 @@
+package org.cryptomator.hub.entities.events;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.DiscriminatorValue;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+@QuarkusTest
+@DisplayName("Audit Event Rollup")
+public class AuditEventRollupIT {
+
+	@Inject
+	EntityManager em;
+
+	@Test
+	@DisplayName("every audit event type is counted by its own type")
+	public void testDimensionsOfAllTypes() throws ReflectiveOperationException {
+		var types = em.getMetamodel().getEntities().stream()
+				.map(entity -> entity.getJavaType())
+				.filter(type -> AuditEvent.class.isAssignableFrom(type) && type != AuditEvent.class)
+				.toList();
+		Assertions.assertFalse(types.isEmpty());
+		for (var type : types) {
+			var event = (AuditEvent) type.getDeclaredConstructor().newInstance();
+			event.setTimestamp(Instant.parse("2031-01-01T10:00:00Z"));
+
+			var dimensions = AuditEventRollup.Dimensions.of(event);
+
+			Assertions.assertEquals(type.getAnnotation(DiscriminatorValue.class).value(), dimensions.type(), type.getName());
+		}
+	}
+
+}
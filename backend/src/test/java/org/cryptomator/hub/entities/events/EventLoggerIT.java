@@ -0,0 +1,51 @@
+package org.cryptomator.hub.entities.events;
+
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+@QuarkusTest
+@DisplayName("Event Logger")
+public class EventLoggerIT {
+
+	@Inject
+	EventLogger eventLogger;
+	@Inject
+	AuditEvent.Repository auditEventRepo;
+
+	@Test
+	@TestTransaction
+	@DisplayName("ids of many events are drawn from the sequence at once")
+	public void testNextIds() {
+		var ids = auditEventRepo.nextIds(3);
+
+		Assertions.assertEquals(3, ids.size());
+		Assertions.assertEquals(ids.get(0) + 1, ids.get(1));
+		Assertions.assertEquals(ids.get(1) + 1, ids.get(2));
+	}
+
+	@Test
+	@TestTransaction
+	@DisplayName("events logged together get consecutive ids, followed by ids drawn one at a time")
+	public void testLogAllIds() {
+		var maxIdBefore = auditEventRepo.findMaxId();
+		var vault1 = UUID.fromString("7E57C0DE-0000-4000-8000-000100001111");
+		var vault2 = UUID.fromString("7E57C0DE-0000-4000-8000-000100002222");
+
+		eventLogger.logVaultAccessesGranted("user1", List.of(vault1, vault2), "user2");
+		eventLogger.logVaultOwnershipClaimed("user1", vault1);
+		auditEventRepo.flush();
+
+		var ids = auditEventRepo.findAllAfterId(maxIdBefore, 10).stream().map(AuditEvent::getId).toList();
+		Assertions.assertEquals(3, ids.size());
+		Assertions.assertEquals(ids.get(0) + 1, ids.get(1));
+		Assertions.assertTrue(ids.get(2) > ids.get(1));
+	}
+
+}
@@ -0,0 +1,16 @@
+package org.cryptomator.hub.filters;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class AcceptEncodingTest {
+
+	@ParameterizedTest
+	@CsvSource(value = {"gzip,gzip,true", "'deflate, gzip',gzip,true", "GZIP;q=0.5,gzip,true", "gzip;q=0,gzip,false", "gzip; q=0.0,gzip,false", "br,gzip,false", "NULL,gzip,false", "'gzip, deflate, br',br,true", "br;q=0.1,br,true"}, nullValues = "NULL")
+	@DisplayName("parse Accept-Encoding")
+	public void testAccepts(String acceptEncoding, String coding, boolean expected) {
+		Assertions.assertEquals(expected, AcceptEncoding.accepts(acceptEncoding, coding));
+	}
+}
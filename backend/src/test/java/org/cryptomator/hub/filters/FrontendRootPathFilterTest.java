@@ -0,0 +1,105 @@
+package org.cryptomator.hub.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class FrontendRootPathFilterTest {
+
+	private static final String INDEX = "<html><head><base href=\"/\"/></head></html>";
+	private static final String REWRITTEN_INDEX = "<html><head><base href=\"/hub/\"/></head></html>";
+
+	private HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+	private HttpServletResponse res = Mockito.mock(HttpServletResponse.class);
+	private ServletOutputStream out = Mockito.mock(ServletOutputStream.class);
+	private ServletContext servletContext = Mockito.mock(ServletContext.class);
+	private FilterChain chain = Mockito.mock(FilterChain.class);
+	private FrontendRootPathFilter filter = new FrontendRootPathFilter();
+
+	@BeforeEach
+	public void setup() throws IOException {
+		filter.publicRootPath = () -> "/hub/";
+		Mockito.doReturn(servletContext).when(req).getServletContext();
+		Mockito.doAnswer(invocation -> new ByteArrayInputStream(INDEX.getBytes(StandardCharsets.UTF_8))).when(servletContext).getResourceAsStream("/index.html");
+		Mockito.doReturn("GET").when(req).getMethod();
+		Mockito.doReturn(out).when(res).getOutputStream();
+	}
+
+	@Test
+	@DisplayName("rewrite base href")
+	public void testRewrite() {
+		var index = FrontendRootPathFilter.IndexHtml.of(INDEX.getBytes(StandardCharsets.UTF_8), "/hub/");
+
+		Assertions.assertEquals(REWRITTEN_INDEX, new String(index.content(), StandardCharsets.UTF_8));
+		Assertions.assertNotEquals(index.etag(), index.gzippedEtag());
+	}
+
+	@Test
+	@DisplayName("gzipped variant contains rewritten index.html")
+	public void testGzipped() throws IOException {
+		var index = FrontendRootPathFilter.IndexHtml.of(INDEX.getBytes(StandardCharsets.UTF_8), "/hub/");
+
+		try (var in = new GZIPInputStream(new ByteArrayInputStream(index.gzipped()))) {
+			Assertions.assertEquals(REWRITTEN_INDEX, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	@DisplayName("serve rewritten index.html without invoking the chain")
+	public void testServe() throws ServletException, IOException {
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(out).write(REWRITTEN_INDEX.getBytes(StandardCharsets.UTF_8));
+		Mockito.verify(res).setHeader(Mockito.eq("ETag"), Mockito.anyString());
+		Mockito.verify(res, Mockito.never()).setHeader(Mockito.eq("Content-Encoding"), Mockito.anyString());
+		Mockito.verifyNoInteractions(chain);
+	}
+
+	@Test
+	@DisplayName("serve gzipped index.html if accepted")
+	public void testServeGzipped() throws ServletException, IOException {
+		Mockito.doReturn("gzip, deflate, br").when(req).getHeader("Accept-Encoding");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(res).setHeader("Content-Encoding", "gzip");
+		Mockito.verify(out).write(Mockito.any(byte[].class));
+		Mockito.verifyNoInteractions(chain);
+	}
+
+	@Test
+	@DisplayName("respond with 304 if ETag matches")
+	public void testNotModified() throws ServletException, IOException {
+		var etag = FrontendRootPathFilter.IndexHtml.of(INDEX.getBytes(StandardCharsets.UTF_8), "/hub/").etag();
+		Mockito.doReturn(etag).when(req).getHeader("If-None-Match");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(res).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		Mockito.verifyNoInteractions(out);
+		Mockito.verifyNoInteractions(chain);
+	}
+
+	@Test
+	@DisplayName("continue chain if index.html is missing")
+	public void testMissingIndex() throws ServletException, IOException {
+		Mockito.doReturn(null).when(servletContext).getResourceAsStream("/index.html");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(chain).doFilter(req, res);
+	}
+}
@@ -0,0 +1,122 @@
+package org.cryptomator.hub.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+
+public class PrecompressedAssetFilterTest {
+
+	private HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+	private HttpServletResponse res = Mockito.mock(HttpServletResponse.class);
+	private ServletOutputStream out = Mockito.mock(ServletOutputStream.class);
+	private ServletContext servletContext = Mockito.mock(ServletContext.class);
+	private FilterChain chain = Mockito.mock(FilterChain.class);
+	private PrecompressedAssetFilter filter = new PrecompressedAssetFilter();
+
+	@BeforeEach
+	public void setup() throws IOException {
+		Mockito.doReturn(servletContext).when(req).getServletContext();
+		Mockito.doReturn("GET").when(req).getMethod();
+		Mockito.doReturn("/assets/main.js").when(req).getServletPath();
+		Mockito.doReturn("text/javascript").when(servletContext).getMimeType("/assets/main.js");
+		Mockito.doAnswer(invocation -> new ByteArrayInputStream(new byte[42])).when(servletContext).getResourceAsStream("/assets/main.js.br");
+		Mockito.doAnswer(invocation -> new ByteArrayInputStream(new byte[23])).when(servletContext).getResourceAsStream("/assets/main.js.gz");
+		Mockito.doReturn(out).when(res).getOutputStream();
+	}
+
+	@Test
+	@DisplayName("prefer brotli variant")
+	public void testServeBrotli() throws ServletException, IOException {
+		Mockito.doReturn("gzip, deflate, br").when(req).getHeader("Accept-Encoding");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(res).setHeader("Content-Encoding", "br");
+		Mockito.verify(res).setContentType("text/javascript");
+		Mockito.verify(res).setContentLengthLong(42);
+		Mockito.verifyNoInteractions(chain);
+	}
+
+	@Test
+	@DisplayName("serve gzip variant if brotli is not accepted")
+	public void testServeGzip() throws ServletException, IOException {
+		Mockito.doReturn("gzip, deflate").when(req).getHeader("Accept-Encoding");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(res).setHeader("Content-Encoding", "gzip");
+		Mockito.verify(res).setContentLengthLong(23);
+		Mockito.verifyNoInteractions(chain);
+	}
+
+	@Test
+	@DisplayName("serve gzip variant if brotli variant is missing")
+	public void testServeGzipIfBrotliMissing() throws ServletException, IOException {
+		Mockito.doReturn("gzip, deflate, br").when(req).getHeader("Accept-Encoding");
+		Mockito.doReturn(null).when(servletContext).getResourceAsStream("/assets/main.js.br");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(res).setHeader("Content-Encoding", "gzip");
+		Mockito.verifyNoInteractions(chain);
+	}
+
+	@Test
+	@DisplayName("continue chain if no variant is accepted")
+	public void testNoAcceptedVariant() throws ServletException, IOException {
+		Mockito.doReturn("identity").when(req).getHeader("Accept-Encoding");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(res).setHeader("Vary", "Accept-Encoding");
+		Mockito.verify(res, Mockito.never()).setHeader(Mockito.eq("Content-Encoding"), Mockito.anyString());
+		Mockito.verify(chain).doFilter(req, res);
+	}
+
+	@Test
+	@DisplayName("don't remember variants of nonexistent assets")
+	public void testNonexistentAsset() throws ServletException, IOException {
+		Mockito.doReturn("/assets/nonexistent-42.js").when(req).getServletPath();
+		Mockito.doReturn("gzip, deflate, br").when(req).getHeader("Accept-Encoding");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(chain).doFilter(req, res);
+		Assertions.assertTrue(filter.variantSizes.isEmpty());
+	}
+
+	@Test
+	@DisplayName("remember missing variants of existing assets")
+	public void testExistingAssetWithoutVariants() throws ServletException, IOException {
+		Mockito.doReturn("/assets/logo.png").when(req).getServletPath();
+		Mockito.doReturn(URI.create("file:/assets/logo.png").toURL()).when(servletContext).getResource("/assets/logo.png");
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(chain).doFilter(req, res);
+		Assertions.assertEquals(2, filter.variantSizes.size());
+	}
+
+	@Test
+	@DisplayName("continue chain for methods other than GET and HEAD")
+	public void testOtherMethod() throws ServletException, IOException {
+		Mockito.doReturn("POST").when(req).getMethod();
+
+		filter.doFilter(req, res, chain);
+
+		Mockito.verify(chain).doFilter(req, res);
+		Mockito.verifyNoInteractions(servletContext);
+	}
+}
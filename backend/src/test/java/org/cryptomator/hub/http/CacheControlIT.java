@@ -0,0 +1,85 @@
+package org.cryptomator.hub.http;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.security.oidc.Claim;
+import io.quarkus.test.security.oidc.OidcSecurity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.when;
+
+@QuarkusTest
+@DisplayName("Cache-Control of /api")
+@TestSecurity(user = "User Name 1", roles = {"user"})
+@OidcSecurity(claims = {
+		@Claim(key = "sub", value = "user1")
+})
+@TestProfile(CacheControlIT.ProductionRestPathTestProfile.class)
+public class CacheControlIT {
+
+	public static class ProductionRestPathTestProfile implements QuarkusTestProfile {
+		@Override
+		public Map<String, String> getConfigOverrides() {
+			return Map.of("quarkus.rest.path", "/api");
+		}
+	}
+
+	@ParameterizedTest(name = "GET {0}")
+	@DisplayName("resources supporting conditional requests are private and revalidated")
+	@ValueSource(strings = {"/api/settings", "/api/groups", "/api/users", "/api/users/me", "/api/vaults/7E57C0DE-0000-4000-8000-000100001111", "/api/vaults/7E57C0DE-0000-4000-8000-000100001111/members"})
+	public void testConditionalGet(String path) {
+		var cacheControl = when().get(path)
+				.then().statusCode(200)
+				.extract().headers().getValues("Cache-Control");
+
+		Assertions.assertEquals(1, cacheControl.size(), () -> "Expected a single Cache-Control header, got " + cacheControl);
+		var directives = Arrays.stream(cacheControl.getFirst().split(",")).map(String::trim).sorted().toList();
+		Assertions.assertEquals(List.of("no-cache", "private"), directives);
+	}
+
+	@ParameterizedTest(name = "GET {0}")
+	@DisplayName("other resources are not stored")
+	@ValueSource(strings = {"/api/vaults/accessible", "/api/users/me/changes", "/api/users/me-with-legacy-devices-and-access"})
+	public void testNoStore(String path) {
+		var cacheControl = when().get(path)
+				.then().statusCode(200)
+				.extract().headers().getValues("Cache-Control");
+
+		Assertions.assertTrue(cacheControl.stream().anyMatch(value -> value.contains("no-store")), () -> "Expected no-store, got " + cacheControl);
+	}
+
+	@Test
+	@DisplayName("GET /api/users/me?withLastAccess=true is not stored")
+	public void testMeWithLastAccess() {
+		var cacheControl = when().get("/api/users/me?withDevices=true&withLastAccess=true")
+				.then().statusCode(200)
+				.extract().headers().getValues("Cache-Control");
+
+		Assertions.assertEquals(List.of("no-cache, no-store, must-revalidate"), cacheControl);
+	}
+
+	@ParameterizedTest(name = "GET {0} -> {1}")
+	@DisplayName("errors of resources supporting conditional requests are not stored")
+	@CsvSource(value = {
+			"/api/vaults/7E57C0DE-0000-4000-8000-BADBADBADBAD, 404",
+			"/api/vaults/7E57C0DE-0000-4000-8000-000100002222/members, 403"
+	})
+	public void testConditionalGetError(String path, int status) {
+		var cacheControl = when().get(path)
+				.then().statusCode(status)
+				.extract().headers().getValues("Cache-Control");
+
+		Assertions.assertEquals(List.of("no-cache, no-store, must-revalidate"), cacheControl);
+	}
+}
@@ -0,0 +1,58 @@
+package org.cryptomator.hub.http;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.security.oidc.Claim;
+import io.quarkus.test.security.oidc.OidcSecurity;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+@QuarkusTest
+@DisplayName("Response compression")
+@TestSecurity(user = "User Name 1", roles = {"user"})
+@OidcSecurity(claims = {
+		@Claim(key = "sub", value = "user1")
+})
+@TestProfile(CompressionIT.NoThresholdTestProfile.class)
+public class CompressionIT {
+
+	// prevent RestAssured from adding its own Accept-Encoding header:
+	private static final RestAssuredConfig NO_DECODERS = RestAssuredConfig.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders());
+
+	public static class NoThresholdTestProfile implements QuarkusTestProfile {
+		@Override
+		public Map<String, String> getConfigOverrides() {
+			return Map.of("hub.http.compression-threshold", "0");
+		}
+	}
+
+	@Test
+	@DisplayName("GET /settings is compressed if accepted")
+	public void testCompressed() {
+		given().config(NO_DECODERS).header("Accept-Encoding", "gzip")
+				.when().get("/settings")
+				.then().statusCode(200)
+				.header("Content-Encoding", is("gzip"))
+				.header("Cache-Control", containsString("private"));
+	}
+
+	@Test
+	@DisplayName("GET /settings is uncompressed if not accepted")
+	public void testUncompressed() {
+		given().config(NO_DECODERS).header("Accept-Encoding", "identity")
+				.when().get("/settings")
+				.then().statusCode(200)
+				.header("Content-Encoding", nullValue());
+	}
+}
@@ -0,0 +1,120 @@
+package org.cryptomator.hub.keycloak;
+
+import jakarta.ws.rs.ProcessingException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.info.SystemInfoRepresentation;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+class KeycloakVersionCacheTest {
+
+	private final Keycloak keycloak = Mockito.mock(Keycloak.class, Mockito.RETURNS_DEEP_STUBS);
+	private final Queue<Runnable> scheduledTasks = new ArrayDeque<>();
+	private long now = 0L;
+
+	private KeycloakVersionCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new KeycloakVersionCache();
+		cache.keycloak = keycloak;
+		cache.ttl = Duration.ofNanos(100);
+		cache.retryInterval = Duration.ofNanos(10);
+		cache.initialTimeout = Duration.ZERO;
+		cache.nanoClock = () -> now;
+		cache.executor = scheduledTasks::add;
+	}
+
+	private void keycloakReportsVersion(String version) {
+		var systemInfo = new SystemInfoRepresentation();
+		systemInfo.setVersion(version);
+		Mockito.when(keycloak.serverInfo().getInfo().getSystemInfo()).thenReturn(systemInfo);
+	}
+
+	private void runScheduledTasks() {
+		Runnable task;
+		while ((task = scheduledTasks.poll()) != null) {
+			task.run();
+		}
+	}
+
+	@Test
+	@DisplayName("first lookup returns null if Keycloak does not respond in time")
+	public void testInitialTimeout() {
+		keycloakReportsVersion("26.0.0");
+
+		var version = cache.getVersion();
+
+		Assertions.assertNull(version);
+		Assertions.assertEquals(1, scheduledTasks.size());
+	}
+
+	@Test
+	@DisplayName("concurrent lookups share a single refresh")
+	public void testSingleRefresh() {
+		keycloakReportsVersion("26.0.0");
+
+		cache.getVersion();
+		cache.getVersion();
+
+		Assertions.assertEquals(1, scheduledTasks.size());
+	}
+
+	@Test
+	@DisplayName("cached version is returned without contacting Keycloak")
+	public void testCachedVersion() {
+		keycloakReportsVersion("26.0.0");
+		cache.refresh();
+		runScheduledTasks();
+		Mockito.clearInvocations(keycloak);
+
+		var version = cache.getVersion();
+
+		Assertions.assertEquals("26.0.0", version);
+		Assertions.assertTrue(scheduledTasks.isEmpty());
+		Mockito.verifyNoInteractions(keycloak);
+	}
+
+	@Test
+	@DisplayName("expired version is returned while refreshing in background")
+	public void testStaleWhileRevalidate() {
+		keycloakReportsVersion("26.0.0");
+		cache.refresh();
+		runScheduledTasks();
+		keycloakReportsVersion("26.1.0");
+		now = 100L;
+
+		var staleVersion = cache.getVersion();
+		runScheduledTasks();
+		var freshVersion = cache.getVersion();
+
+		Assertions.assertEquals("26.0.0", staleVersion);
+		Assertions.assertEquals("26.1.0", freshVersion);
+	}
+
+	@Test
+	@DisplayName("last known version is kept if Keycloak fails")
+	public void testFailedRefresh() {
+		keycloakReportsVersion("26.0.0");
+		cache.refresh();
+		runScheduledTasks();
+		Mockito.when(keycloak.serverInfo().getInfo()).thenThrow(new ProcessingException("Connection refused"));
+		now = 100L;
+
+		cache.getVersion();
+		runScheduledTasks();
+		now = 105L;
+		var version = cache.getVersion();
+
+		Assertions.assertEquals("26.0.0", version);
+		Assertions.assertTrue(scheduledTasks.isEmpty()); // retry interval not yet elapsed
+	}
+
+}
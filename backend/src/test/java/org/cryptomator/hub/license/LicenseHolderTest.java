@@ -3,6 +3,8 @@ package org.cryptomator.hub.license;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import org.cryptomator.hub.cluster.SettingsChangeNotifier;
+import org.cryptomator.hub.cluster.SettingsChanged;
 import org.cryptomator.hub.entities.Settings;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +20,8 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.Date;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -34,6 +38,7 @@ public class LicenseHolderTest {
 	Settings.Repository settingsRepo = mock(Settings.Repository.class);
 	RandomMinuteSleeper randomMinuteSleeper = mock(RandomMinuteSleeper.class);
 	LicenseValidator validator = mock(LicenseValidator.class);
+	SettingsChangeNotifier settingsChangeNotifier = mock(SettingsChangeNotifier.class);
 
 	LicenseHolder licenseHolder;
 
@@ -43,6 +48,7 @@ public class LicenseHolderTest {
 		licenseHolder.licenseValidator = validator;
 		licenseHolder.settingsRepo = settingsRepo;
 		licenseHolder.randomMinuteSleeper = randomMinuteSleeper;
+		licenseHolder.settingsChangeNotifier = settingsChangeNotifier;
 	}
 
 	@Nested
@@ -147,7 +153,8 @@ public class LicenseHolderTest {
 		licenseHolder.validateOrResetExistingLicense(settings);
 		verify(settings, never()).setHubId(any());
 		verify(settings).setLicenseKey(Mockito.isNull());
-		verify(settingsRepo).persistAndFlush(settings);
+		verify(settingsRepo).update(settings);
+		verify(settingsChangeNotifier).publish();
 	}
 
 	@Test
@@ -160,7 +167,8 @@ public class LicenseHolderTest {
 		licenseHolder.validateAndApplyInitLicense(settings, "token", "42");
 		verify(settings).setHubId("42");
 		verify(settings).setLicenseKey("token");
-		verify(settingsRepo).persistAndFlush(settings);
+		verify(settingsRepo).update(settings);
+		verify(settingsChangeNotifier).publish();
 	}
 
 	@Test
@@ -201,7 +209,8 @@ public class LicenseHolderTest {
 
 			verify(validator).validate("token", "42");
 			verify(settings).setLicenseKey("token");
-			verify(settingsRepo).persistAndFlush(settings);
+			verify(settingsRepo).update(settings);
+			verify(settingsChangeNotifier).publish();
 			Assertions.assertEquals(decodedJWT, licenseHolder.get()); //TODO: not very unit test like
 		}
 
@@ -218,11 +227,113 @@ public class LicenseHolderTest {
 			Assertions.assertThrows(JWTVerificationException.class, () -> licenseHolder.set("token"));
 
 			verify(validator).validate("token", "42");
-			verify(settingsRepo, never()).persist((Settings) any());
+			verify(settingsRepo, never()).update(any());
+			verify(settingsChangeNotifier, never()).publish();
 			Assertions.assertNull(licenseHolder.get()); //TODO: not very unit test like
 		}
 	}
 
+	@Nested
+	@DisplayName("Testing onSettingsChanged()")
+	class OnSettingsChanged {
+
+		@Test
+		@DisplayName("License changed by other instance is reloaded")
+		public void testLicenseChanged() {
+			var decodedJWT = mock(DecodedJWT.class);
+			when(validator.validate("token", "42")).thenReturn(decodedJWT);
+			Settings settings = mock(Settings.class);
+			when(settings.getLicenseKey()).thenReturn("token");
+			when(settings.getHubId()).thenReturn("42");
+			when(settingsRepo.get()).thenReturn(settings);
+
+			licenseHolder.onSettingsChanged(new SettingsChanged());
+
+			Assertions.assertEquals(decodedJWT, licenseHolder.get());
+		}
+
+		@Test
+		@DisplayName("License removed by other instance is unset")
+		public void testLicenseRemoved() {
+			var decodedJWT = mock(DecodedJWT.class);
+			when(validator.validate("token", "42")).thenReturn(decodedJWT);
+			Settings settings = mock(Settings.class);
+			when(settings.getHubId()).thenReturn("42");
+			when(settingsRepo.get()).thenReturn(settings);
+			licenseHolder.set("token");
+
+			licenseHolder.onSettingsChanged(new SettingsChanged());
+
+			Assertions.assertNull(licenseHolder.get());
+		}
+	}
+
+	@Nested
+	@DisplayName("Testing license state getters")
+	class LicenseState {
+
+		Settings settings = mock(Settings.class);
+
+		@BeforeEach
+		public void setup() {
+			when(settings.getHubId()).thenReturn("42");
+			when(settingsRepo.get()).thenReturn(settings);
+			licenseHolder.managedInstance = false;
+		}
+
+		@Test
+		@DisplayName("Without license, defaults apply")
+		public void testNoLicense() {
+			Assertions.assertFalse(licenseHolder.isSet());
+			Assertions.assertFalse(licenseHolder.isExpired());
+			Assertions.assertEquals(5, licenseHolder.getSeats());
+			Assertions.assertEquals("INACTIVE", licenseHolder.getSubscriptionState());
+		}
+
+		@Test
+		@DisplayName("Values are taken from the license set")
+		public void testValidLicense() {
+			var seatsClaim = mock(Claim.class);
+			when(seatsClaim.asLong()).thenReturn(42L);
+			var decodedJWT = mock(DecodedJWT.class);
+			when(decodedJWT.getClaim("seats")).thenReturn(seatsClaim);
+			when(decodedJWT.getExpiresAt()).thenReturn(Date.from(Instant.now().plusSeconds(3600)));
+			when(validator.validate("token", "42")).thenReturn(decodedJWT);
+
+			licenseHolder.set("token");
+
+			Assertions.assertTrue(licenseHolder.isSet());
+			Assertions.assertFalse(licenseHolder.isExpired());
+			Assertions.assertEquals(42, licenseHolder.getSeats());
+			Assertions.assertEquals("ACTIVE", licenseHolder.getSubscriptionState());
+		}
+
+		@Test
+		@DisplayName("Expired license is detected")
+		public void testExpiredLicense() {
+			var decodedJWT = mock(DecodedJWT.class);
+			when(decodedJWT.getExpiresAt()).thenReturn(Date.from(Instant.now().minusSeconds(1)));
+			when(validator.validate("token", "42")).thenReturn(decodedJWT);
+
+			licenseHolder.set("token");
+
+			Assertions.assertTrue(licenseHolder.isExpired());
+			Assertions.assertEquals("ACTIVE", licenseHolder.getSubscriptionState());
+		}
+
+		@Test
+		@DisplayName("Without seats claim, defaults apply")
+		public void testLicenseWithoutSeats() {
+			var decodedJWT = mock(DecodedJWT.class);
+			when(validator.validate("token", "42")).thenReturn(decodedJWT);
+
+			licenseHolder.set("token");
+
+			Assertions.assertFalse(licenseHolder.isExpired());
+			Assertions.assertEquals(5, licenseHolder.getSeats());
+		}
+	}
+
 	@Nested
 	@DisplayName("Testing refreshLicense()")
 	class RefreshLicense {
@@ -241,7 +352,7 @@ public class LicenseHolderTest {
 			verify(licenseHolderSpy, never()).requestLicenseRefresh(any(), any());
 			verify(licenseHolderSpy, never()).set(any());
 			verify(settingsRepo, never()).get();
-			verify(settingsRepo, never()).persistAndFlush(any());
+			verify(settingsRepo, never()).update(any());
 		}
 
 
@@ -261,7 +372,7 @@ public class LicenseHolderTest {
 			verify(licenseHolderSpy, never()).requestLicenseRefresh(any(), any());
 			verify(licenseHolderSpy, never()).set(any());
 			verify(settingsRepo, never()).get();
-			verify(settingsRepo, never()).persistAndFlush(any());
+			verify(settingsRepo, never()).update(any());
 		}
 
 		@DisplayName("If license request throws, do not set license")
@@ -283,7 +394,7 @@ public class LicenseHolderTest {
 			verify(licenseHolderSpy).requestLicenseRefresh(any(), eq("token"));
 			verify(licenseHolderSpy, never()).set(any());
 			verify(settingsRepo, never()).get();
-			verify(settingsRepo, never()).persistAndFlush(any());
+			verify(settingsRepo, never()).update(any());
 		}
 
 		static Stream<Throwable> provideRefreshLicenseFailingRequestCases() {
@@ -309,7 +420,7 @@ public class LicenseHolderTest {
 			verify(licenseHolderSpy).requestLicenseRefresh(any(), eq("token"));
 			verify(licenseHolderSpy).set("newToken");
 			verify(settingsRepo, never()).get();
-			verify(settingsRepo, never()).persistAndFlush(any());
+			verify(settingsRepo, never()).update(any());
 		}
 
 		@Test
@@ -331,7 +442,7 @@ public class LicenseHolderTest {
 			verify(licenseHolderSpy).requestLicenseRefresh(any(), eq("token"));
 			verify(licenseHolderSpy).set("newToken");
 			verify(settingsRepo, never()).get();
-			verify(settingsRepo, never()).persistAndFlush(any());
+			verify(settingsRepo, never()).update(any());
 		}
 
 	}
@@ -0,0 +1,158 @@
+package org.cryptomator.hub.license;
+
+import org.cryptomator.hub.entities.EffectiveVaultAccess;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+class SeatCounterTest {
+
+	private final EffectiveVaultAccess.Repository effectiveVaultAccessRepo = Mockito.mock(EffectiveVaultAccess.Repository.class);
+	private long now = 0L;
+
+	private SeatCounter seatCounter;
+
+	@BeforeEach
+	void setUp() {
+		seatCounter = new SeatCounter();
+		seatCounter.effectiveVaultAccessRepo = effectiveVaultAccessRepo;
+		seatCounter.maxAge = Duration.ofNanos(100);
+		seatCounter.nanoClock = () -> now;
+		seatCounter.transactionActive = () -> true;
+		seatCounter.newTransaction = query -> {
+			throw new AssertionError("callers with a transaction must not start another one");
+		};
+	}
+
+	@Test
+	@DisplayName("concurrent lookups share a single query")
+	public void testSingleFlight() throws Exception {
+		var queryStarted = new CountDownLatch(1);
+		var queryMayComplete = new CountDownLatch(1);
+		Mockito.when(effectiveVaultAccessRepo.countSeatOccupyingUsers()).thenAnswer(invocation -> {
+			queryStarted.countDown();
+			queryMayComplete.await();
+			return 42L;
+		});
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<Long> leader = executor.submit(seatCounter::countSeatOccupyingUsers);
+			queryStarted.await();
+			Future<Long> follower1 = executor.submit(seatCounter::countSeatOccupyingUsers);
+			Future<Long> follower2 = executor.submit(seatCounter::countSeatOccupyingUsers);
+			Thread.sleep(50); // let followers join the pending query
+			queryMayComplete.countDown();
+
+			Assertions.assertEquals(42L, leader.get());
+			Assertions.assertEquals(42L, follower1.get());
+			Assertions.assertEquals(42L, follower2.get());
+		}
+		Mockito.verify(effectiveVaultAccessRepo, Mockito.times(1)).countSeatOccupyingUsers();
+	}
+
+	@Test
+	@DisplayName("more concurrent callers than pooled connections don't starve the shared query")
+	public void testMoreCallersThanConnections() throws Exception {
+		var poolSize = 16; // quarkus.datasource.jdbc.max-size
+		var callers = 50;
+		var connections = new Semaphore(poolSize);
+		seatCounter.maxAge = Duration.ZERO;
+		Mockito.when(effectiveVaultAccessRepo.countSeatOccupyingUsers()).thenAnswer(invocation -> {
+			Thread.sleep(20); // let other callers pile up
+			return 42L;
+		});
+
+		List<Future<Long>> results = new ArrayList<>();
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < callers; i++) {
+				results.add(executor.submit(() -> {
+					if (!connections.tryAcquire(1, TimeUnit.SECONDS)) { // each caller's transaction holds a connection
+						throw new IllegalStateException("connection pool exhausted");
+					}
+					try {
+						return seatCounter.countSeatOccupyingUsers();
+					} finally {
+						connections.release();
+					}
+				}));
+			}
+		}
+		for (var result : results) {
+			Assertions.assertEquals(42L, result.get());
+		}
+	}
+
+	@Test
+	@DisplayName("callers without a transaction count in a new one, but never start a shared query")
+	public void testWithoutTransaction() throws Exception {
+		var queryStarted = new CountDownLatch(1);
+		var queryMayComplete = new CountDownLatch(1);
+		Mockito.when(effectiveVaultAccessRepo.countSeatOccupyingUsers()).thenAnswer(invocation -> {
+			queryStarted.countDown();
+			queryMayComplete.await();
+			return 42L;
+		}).thenReturn(43L);
+		seatCounter.transactionActive = () -> false;
+		seatCounter.newTransaction = LongSupplier::getAsLong;
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<Long> first = executor.submit(seatCounter::countSeatOccupyingUsers);
+			queryStarted.await();
+			Future<Long> second = executor.submit(seatCounter::countSeatOccupyingUsers);
+
+			Assertions.assertEquals(43L, second.get()); // didn't wait for the first query
+			queryMayComplete.countDown();
+			Assertions.assertEquals(42L, first.get());
+		}
+		Mockito.verify(effectiveVaultAccessRepo, Mockito.times(2)).countSeatOccupyingUsers();
+	}
+
+	@Test
+	@DisplayName("count is reused until max age is reached")
+	public void testMaxAge() {
+		Mockito.when(effectiveVaultAccessRepo.countSeatOccupyingUsers()).thenReturn(3L, 4L);
+
+		var first = seatCounter.countSeatOccupyingUsers();
+		now = 99L;
+		var reused = seatCounter.countSeatOccupyingUsers();
+		now = 100L;
+		var recounted = seatCounter.countSeatOccupyingUsers();
+
+		Assertions.assertEquals(3L, first);
+		Assertions.assertEquals(3L, reused);
+		Assertions.assertEquals(4L, recounted);
+		Mockito.verify(effectiveVaultAccessRepo, Mockito.times(2)).countSeatOccupyingUsers();
+	}
+
+	@Test
+	@DisplayName("different counts are cached separately")
+	public void testSeparateCounts() {
+		Mockito.when(effectiveVaultAccessRepo.countSeatOccupyingUsers()).thenReturn(3L);
+		Mockito.when(effectiveVaultAccessRepo.countSeatOccupyingUsersWithAccessToken()).thenReturn(2L);
+
+		Assertions.assertEquals(3L, seatCounter.countSeatOccupyingUsers());
+		Assertions.assertEquals(2L, seatCounter.countSeatOccupyingUsersWithAccessToken());
+	}
+
+	@Test
+	@DisplayName("failed query is not cached")
+	public void testFailedQuery() {
+		Mockito.when(effectiveVaultAccessRepo.countSeatOccupyingUsers()).thenThrow(new IllegalStateException("connection lost")).thenReturn(3L);
+
+		Assertions.assertThrows(IllegalStateException.class, seatCounter::countSeatOccupyingUsers);
+		Assertions.assertEquals(3L, seatCounter.countSeatOccupyingUsers());
+	}
+
+}
@@ -0,0 +1,176 @@
+package org.cryptomator.hub.load;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Drives a weighted mix of requests with a fixed number of concurrent clients and records the latency of each request per endpoint.
+ */
+class LoadGenerator {
+
+	private static final Path REPORT_DIR = Path.of("target", "load-test");
+
+	private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private final URI baseUri;
+	private final int concurrency;
+	private final Duration warmup;
+	private final Duration duration;
+
+	LoadGenerator(URI baseUri, int concurrency, Duration warmup, Duration duration) {
+		this.baseUri = baseUri;
+		this.concurrency = concurrency;
+		this.warmup = warmup;
+		this.duration = duration;
+	}
+
+	static LoadGenerator fromSystemProperties(URI baseUri) {
+		return new LoadGenerator(baseUri, //
+				Integer.getInteger("hub.load-test.concurrency", 32), //
+				Duration.parse(System.getProperty("hub.load-test.warmup", "PT10S")), //
+				Duration.parse(System.getProperty("hub.load-test.duration", "PT30S")));
+	}
+
+	/**
+	 * A request which is part of a client mix.
+	 *
+	 * @param endpoint       Name of the endpoint used in the report, e.g. {@code GET /vaults/{vaultId}/access-token}
+	 * @param weight         Relative frequency of this request within the mix
+	 * @param expectedStatus HTTP status code of a successful request
+	 * @param path           Creates the request path (including query params) for a randomly chosen value
+	 */
+	record Request(String endpoint, int weight, int expectedStatus, Function<ThreadLocalRandom, String> path) {
+	}
+
+	/**
+	 * Runs the given client mix, first for the warmup period, then for the measured period.
+	 *
+	 * @param scenario Name of the scenario, used as the report file name
+	 * @param mix      The requests to choose from
+	 * @return Statistics per endpoint, measured after warmup
+	 */
+	List<EndpointStats> run(String scenario, List<Request> mix) throws InterruptedException, ExecutionException {
+		var totalWeight = mix.stream().mapToInt(Request::weight).sum();
+		var warmupEnd = System.nanoTime() + warmup.toNanos();
+		var end = warmupEnd + duration.toNanos();
+
+		List<Callable<Map<Request, Samples>>> clients = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			clients.add(() -> {
+				var random = ThreadLocalRandom.current();
+				var samples = new HashMap<Request, Samples>();
+				for (var now = System.nanoTime(); now < end; now = System.nanoTime()) {
+					var request = choose(mix, random.nextInt(totalWeight));
+					var httpRequest = HttpRequest.newBuilder(baseUri.resolve(request.path().apply(random))).GET().build();
+					var response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+					var latency = System.nanoTime() - now;
+					if (now >= warmupEnd) {
+						samples.computeIfAbsent(request, r -> new Samples()).add(latency, response.statusCode() == request.expectedStatus());
+					}
+				}
+				return samples;
+			});
+		}
+
+		var merged = new HashMap<Request, Samples>();
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (var future : executor.invokeAll(clients)) {
+				future.get().forEach((request, samples) -> merged.merge(request, samples, Samples::merge));
+			}
+		}
+
+		var stats = mix.stream().filter(merged::containsKey).map(r -> merged.get(r).stats(r.endpoint(), duration)).toList();
+		report(scenario, stats);
+		return stats;
+	}
+
+	private static Request choose(List<Request> mix, int pick) {
+		for (var request : mix) {
+			pick -= request.weight();
+			if (pick < 0) {
+				return request;
+			}
+		}
+		throw new IllegalStateException("pick exceeds total weight");
+	}
+
+	private void report(String scenario, List<EndpointStats> stats) {
+		var table = new StringBuilder();
+		table.append("%n%s (%d clients, %s):%n".formatted(scenario, concurrency, duration));
+		table.append("%-50s %10s %8s %10s %9s %9s %9s %9s%n".formatted("endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+		for (var s : stats) {
+			table.append("%-50s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n".formatted(s.endpoint(), s.requests(), s.errors(), s.throughput(), s.p50(), s.p90(), s.p99(), s.max()));
+		}
+		System.out.println(table);
+
+		try {
+			Files.createDirectories(REPORT_DIR);
+			new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT_DIR.resolve(scenario + ".json").toFile(), stats);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Latency statistics of a single endpoint. Durations are given in milliseconds.
+	 */
+	record EndpointStats(@JsonProperty("endpoint") String endpoint,
+						 @JsonProperty("requests") long requests,
+						 @JsonProperty("errors") long errors,
+						 @JsonProperty("throughput") double throughput,
+						 @JsonProperty("p50") double p50,
+						 @JsonProperty("p90") double p90,
+						 @JsonProperty("p99") double p99,
+						 @JsonProperty("max") double max) {
+	}
+
+	private static class Samples {
+
+		private final List<Long> latencies = new ArrayList<>();
+		private long errors;
+
+		void add(long latencyNanos, boolean success) {
+			latencies.add(latencyNanos);
+			if (!success) {
+				errors++;
+			}
+		}
+
+		Samples merge(Samples other) {
+			latencies.addAll(other.latencies);
+			errors += other.errors;
+			return this;
+		}
+
+		EndpointStats stats(String endpoint, Duration duration) {
+			latencies.sort(Comparator.naturalOrder());
+			var throughput = latencies.size() * 1000.0 / duration.toMillis();
+			return new EndpointStats(endpoint, latencies.size(), errors, throughput, percentile(0.5), percentile(0.9), percentile(0.99), percentile(1.0));
+		}
+
+		private double percentile(double p) {
+			var index = (int) Math.ceil(p * latencies.size()) - 1;
+			return latencies.get(Math.max(0, index)) / 1_000_000.0;
+		}
+	}
+}
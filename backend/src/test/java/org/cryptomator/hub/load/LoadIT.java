@@ -0,0 +1,138 @@
+package org.cryptomator.hub.load;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.security.oidc.Claim;
+import io.quarkus.test.security.oidc.OidcSecurity;
+import jakarta.inject.Inject;
+import org.cryptomator.hub.license.LicenseHolder;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+
+import java.net.URI;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Load test against a large synthetic tenant, see {@link LoadTestData}. Disabled by default, run it using the {@code load-test} profile:
+ * <pre>
+ * ./mvnw verify -Pload-test -Dhub.load-test.users=100000 -Dhub.load-test.duration=PT1M
+ * </pre>
+ * Reports throughput and latency percentiles per endpoint to stdout and to {@code target/load-test/<scenario>.json}.
+ */
+@QuarkusTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "hub.load-test", matches = "true")
+@DisplayName("Load Test")
+public class LoadIT {
+
+	@Inject
+	AgroalDataSource dataSource;
+
+	@Inject
+	Flyway flyway;
+
+	@InjectMock
+	LicenseHolder licenseHolder;
+
+	@TestHTTPResource("/")
+	URI baseUri;
+
+	private final LoadTestData data = new LoadTestData(LoadTestData.Sizes.fromSystemProperties());
+
+	@BeforeAll
+	public void seed() throws SQLException {
+		data.seed(dataSource);
+	}
+
+	@AfterAll
+	public void reset() {
+		flyway.clean();
+		flyway.migrate();
+	}
+
+	@BeforeEach
+	public void beforeEach() {
+		Mockito.doReturn(true).when(licenseHolder).isSet();
+		Mockito.doReturn(false).when(licenseHolder).isExpired();
+		Mockito.doReturn(Long.MAX_VALUE).when(licenseHolder).getSeats();
+		Mockito.doReturn("ACTIVE").when(licenseHolder).getSubscriptionState();
+	}
+
+	@Test
+	@TestSecurity(user = "Load User 0", roles = {"user"})
+	@OidcSecurity(claims = {
+			@Claim(key = "sub", value = LoadTestData.CLIENT_USER)
+	})
+	@DisplayName("startup unlock storm")
+	public void testUnlockStorm() throws ExecutionException, InterruptedException {
+		var vaultsPerClient = Math.min(data.sizes().vaultsPerClient(), data.sizes().vaults());
+		var stats = LoadGenerator.fromSystemProperties(baseUri).run(scenario("unlock-storm"), List.of( //
+				new LoadGenerator.Request("GET /users/me", 1, 200, r -> "users/me?withDevices=true"), //
+				new LoadGenerator.Request("GET /vaults/accessible", 1, 200, r -> "vaults/accessible"), //
+				new LoadGenerator.Request("GET /vaults/{vaultId}/access-token", 8, 200, r -> "vaults/" + LoadTestData.vaultId(r.nextInt(vaultsPerClient)) + "/access-token") //
+		));
+
+		assertNoErrors(stats);
+	}
+
+	@Test
+	@TestSecurity(user = "Load User 0", roles = {"user"})
+	@OidcSecurity(claims = {
+			@Claim(key = "sub", value = LoadTestData.CLIENT_USER)
+	})
+	@DisplayName("share dialog searches")
+	public void testShareDialog() throws ExecutionException, InterruptedException {
+		var ownedVault = LoadTestData.vaultId(0); // owned by load-user-0
+		var stats = LoadGenerator.fromSystemProperties(baseUri).run(scenario("share-dialog"), List.of( //
+				new LoadGenerator.Request("GET /authorities/search", 6, 200, r -> "authorities/search?withMemberSize=true&query=Load%20User%20" + r.nextInt(1000)), //
+				new LoadGenerator.Request("GET /vaults/{vaultId}/members", 2, 200, r -> "vaults/" + ownedVault + "/members"), //
+				new LoadGenerator.Request("GET /vaults/{vaultId}/users-requiring-access-grant", 2, 200, r -> "vaults/" + ownedVault + "/users-requiring-access-grant") //
+		));
+
+		assertNoErrors(stats);
+	}
+
+	@Test
+	@TestSecurity(user = "Admin", roles = {"admin"})
+	@DisplayName("admin audit log browsing")
+	public void testAuditLogBrowsing() throws ExecutionException, InterruptedException {
+		var endDate = Instant.now();
+		var startDate = endDate.minus(Duration.ofDays(365));
+		var statsStartDate = endDate.minus(Duration.ofDays(30));
+		var auditEvents = data.sizes().auditEvents();
+		var stats = LoadGenerator.fromSystemProperties(baseUri).run(scenario("audit-log"), List.of( //
+				new LoadGenerator.Request("GET /auditlog", 6, 200, r -> "auditlog?startDate=%s&endDate=%s&pageSize=20&paginationId=%d".formatted(startDate, endDate, r.nextLong(auditEvents) + 10_000)), //
+				new LoadGenerator.Request("GET /auditlog?type=VAULT_KEY_RETRIEVE", 2, 200, r -> "auditlog?startDate=%s&endDate=%s&pageSize=100&type=VAULT_KEY_RETRIEVE".formatted(startDate, endDate)), //
+				new LoadGenerator.Request("GET /auditlog/stats", 2, 200, r -> "auditlog/stats?startDate=%s&endDate=%s&interval=day&groupBy=result&type=VAULT_KEY_RETRIEVE".formatted(statsStartDate, endDate)) //
+		));
+
+		assertNoErrors(stats);
+	}
+
+	/**
+	 * @param name The scenario name
+	 * @return The name under which results are reported
+	 */
+	protected String scenario(String name) {
+		return name;
+	}
+
+	private static void assertNoErrors(List<LoadGenerator.EndpointStats> stats) {
+		Assertions.assertAll(stats.stream().map(s -> () -> Assertions.assertEquals(0, s.errors(), "errors in " + s.endpoint())));
+	}
+}
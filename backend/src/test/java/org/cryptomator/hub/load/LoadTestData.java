@@ -0,0 +1,134 @@
+package org.cryptomator.hub.load;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Seeds a large synthetic tenant using set-based inserts, so even millions of rows are created within seconds.
+ * <p>
+ * All seeded authorities are prefixed with {@code load-}, all vault ids start with {@code 10ad0000-}:
+ * <ul>
+ *     <li>{@code load-user-n} is member of {@code load-group-(n % groups)} and has direct access to vault {@code n % vaults}</li>
+ *     <li>groups form a tree, i.e. {@code load-group-n} is member of {@code load-group-((n - 1) / 10)}</li>
+ *     <li>vault {@code v} is owned by {@code load-user-(v % users)} and shared with {@code load-group-(v % groups)}</li>
+ *     <li>{@code load-user-n} signed the identity of {@code load-user-(n + 1)}</li>
+ *     <li>{@link #CLIENT_USER} additionally is member of the first {@link Sizes#vaultsPerClient()} vaults</li>
+ * </ul>
+ *
+ * @param sizes Number of seeded entities
+ */
+record LoadTestData(Sizes sizes) {
+
+	static final String CLIENT_USER = "load-user-0";
+	static final String VAULT_ID_PREFIX = "10ad0000-0000-4000-8000-";
+
+	/**
+	 * @param users           Number of users
+	 * @param groups          Number of groups
+	 * @param vaults          Number of vaults
+	 * @param vaultsPerClient Number of vaults {@link #CLIENT_USER} is able to unlock
+	 * @param auditEvents     Number of audit events, spread over the last year
+	 */
+	record Sizes(int users, int groups, int vaults, int vaultsPerClient, int auditEvents) {
+
+		static Sizes fromSystemProperties() {
+			return new Sizes( //
+					Integer.getInteger("hub.load-test.users", 100_000), //
+					Integer.getInteger("hub.load-test.groups", 1_000), //
+					Integer.getInteger("hub.load-test.vaults", 10_000), //
+					Integer.getInteger("hub.load-test.vaults-per-client", 50), //
+					Integer.getInteger("hub.load-test.audit-events", 1_000_000));
+		}
+	}
+
+	static UUID vaultId(int n) {
+		return UUID.fromString(VAULT_ID_PREFIX + "%012x".formatted(n));
+	}
+
+	private static final String SEED_USERS = """
+			INSERT INTO "authority" ("id", "type", "name")
+			SELECT 'load-user-' || n, 'USER', 'Load User ' || n FROM generate_series(0, :users - 1) n;
+			INSERT INTO "user_details" ("id", "email", "language", "ecdh_publickey", "ecdsa_publickey", "privatekeys", "setupcode")
+			SELECT 'load-user-' || n, 'load-user-' || n || '@example.com', 'en-US', 'ecdh_public' || n, 'ecdsa_public' || n, 'private' || n, 'setup' || n FROM generate_series(0, :users - 1) n;
+			""";
+
+	private static final String SEED_GROUPS = """
+			INSERT INTO "authority" ("id", "type", "name")
+			SELECT 'load-group-' || n, 'GROUP', 'Load Group ' || n FROM generate_series(0, :groups - 1) n;
+			INSERT INTO "group_details" ("id")
+			SELECT 'load-group-' || n FROM generate_series(0, :groups - 1) n;
+			INSERT INTO "group_membership" ("group_id", "member_id")
+			SELECT 'load-group-' || ((n - 1) / 10), 'load-group-' || n FROM generate_series(1, :groups - 1) n;
+			INSERT INTO "group_membership" ("group_id", "member_id")
+			SELECT 'load-group-' || (n % :groups), 'load-user-' || n FROM generate_series(0, :users - 1) n;
+			""";
+
+	private static final String SEED_VAULTS = """
+			INSERT INTO "vault" ("id", "name", "description", "creation_time", "archived")
+			SELECT ('10ad0000-0000-4000-8000-' || lpad(to_hex(v), 12, '0'))::uuid, 'Load Vault ' || v, 'Vault seeded for load tests', now(), FALSE FROM generate_series(0, :vaults - 1) v;
+			INSERT INTO "vault_access" ("vault_id", "authority_id", "role")
+			SELECT ('10ad0000-0000-4000-8000-' || lpad(to_hex(v), 12, '0'))::uuid, 'load-user-' || (v % :users), 'OWNER' FROM generate_series(0, :vaults - 1) v;
+			INSERT INTO "vault_access" ("vault_id", "authority_id", "role")
+			SELECT ('10ad0000-0000-4000-8000-' || lpad(to_hex(v), 12, '0'))::uuid, 'load-group-' || (v % :groups), 'MEMBER' FROM generate_series(0, :vaults - 1) v;
+			INSERT INTO "vault_access" ("vault_id", "authority_id", "role")
+			SELECT ('10ad0000-0000-4000-8000-' || lpad(to_hex(n % :vaults), 12, '0'))::uuid, 'load-user-' || n, 'MEMBER' FROM generate_series(0, :users - 1) n
+			ON CONFLICT DO NOTHING;
+			INSERT INTO "vault_access" ("vault_id", "authority_id", "role")
+			SELECT ('10ad0000-0000-4000-8000-' || lpad(to_hex(v), 12, '0'))::uuid, 'load-user-0', 'MEMBER' FROM generate_series(0, :vaultsPerClient - 1) v
+			ON CONFLICT DO NOTHING;
+			""";
+
+	private static final String SEED_ACCESS_TOKENS = """
+			INSERT INTO "access_token" ("user_id", "vault_id", "vault_masterkey")
+			SELECT "va"."authority_id", "va"."vault_id", 'jwe.jwe.jwe.' || "va"."vault_id" || '.' || "va"."authority_id"
+			FROM "vault_access" "va"
+			WHERE "va"."authority_id" LIKE 'load-user-%';
+			""";
+
+	private static final String SEED_WOT = """
+			INSERT INTO "wot" ("user_id", "signer_id", "signature")
+			SELECT 'load-user-' || (n + 1), 'load-user-' || n, 'signature' || n FROM generate_series(0, :users - 2) n;
+			""";
+
+	private static final String SEED_AUDIT_EVENTS = """
+			CREATE TEMPORARY TABLE "load_audit_event" ON COMMIT DROP AS
+			SELECT nextval('audit_event_id_seq') AS "id", n, now() - make_interval(secs => n * 31536000.0 / :auditEvents) AS "timestamp"
+			FROM generate_series(0, :auditEvents - 1) n;
+			INSERT INTO "audit_event" ("id", "timestamp", "type")
+			SELECT "id", "timestamp", CASE WHEN n % 10 = 0 THEN 'VAULT_MEMBER_ADD' ELSE 'VAULT_KEY_RETRIEVE' END FROM "load_audit_event";
+			INSERT INTO "audit_event_vault_member_add" ("id", "added_by", "vault_id", "authority_id", "role")
+			SELECT "id", 'load-user-' || (n % :vaults % :users), ('10ad0000-0000-4000-8000-' || lpad(to_hex(n % :vaults), 12, '0'))::uuid, 'load-user-' || (n % :users), 'MEMBER'
+			FROM "load_audit_event" WHERE n % 10 = 0;
+			INSERT INTO "audit_event_vault_key_retrieve" ("id", "retrieved_by", "vault_id", "result", "ip_address", "device_id")
+			SELECT "id", 'load-user-' || (n % :users), ('10ad0000-0000-4000-8000-' || lpad(to_hex(n % :vaults), 12, '0'))::uuid, CASE WHEN n % 50 = 1 THEN 'UNAUTHORIZED' ELSE 'SUCCESS' END, '127.0.0.1', 'load-device-' || (n % :users)
+			FROM "load_audit_event" WHERE n % 10 <> 0;
+			INSERT INTO "audit_event_rollup" ("bucket", "type", "vault_id", "user_id", "device_id", "result", "count")
+			SELECT date_trunc('hour', "timestamp", 'UTC'), "type", "vault_id", "user_id", "device_id", "result", count(*)
+			FROM "audit_event_dimension"
+			WHERE "id" IN (SELECT "id" FROM "load_audit_event")
+			GROUP BY 1, 2, 3, 4, 5, 6
+			ON CONFLICT ("bucket", "type", COALESCE("vault_id", '00000000-0000-0000-0000-000000000000'), COALESCE("user_id", ''), COALESCE("device_id", ''), COALESCE("result", ''))
+			DO UPDATE SET "count" = "audit_event_rollup"."count" + EXCLUDED."count";
+			""";
+
+	void seed(DataSource dataSource) throws SQLException {
+		try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+			c.setAutoCommit(false);
+			for (var sql : new String[]{SEED_USERS, SEED_GROUPS, SEED_VAULTS, SEED_ACCESS_TOKENS, SEED_WOT, SEED_AUDIT_EVENTS}) {
+				s.execute(bind(sql));
+			}
+			c.commit();
+			c.setAutoCommit(true);
+			s.execute("ANALYZE"); // update planner statistics, which are way off after inserting this amount of rows
+		}
+	}
+
+	private String bind(String sql) {
+		return sql.replace(":users", Integer.toString(sizes.users())) //
+				.replace(":groups", Integer.toString(sizes.groups())) //
+				.replace(":vaultsPerClient", Integer.toString(Math.min(sizes.vaultsPerClient(), sizes.vaults()))) //
+				.replace(":vaults", Integer.toString(sizes.vaults())) //
+				.replace(":auditEvents", Integer.toString(sizes.auditEvents()));
+	}
+}
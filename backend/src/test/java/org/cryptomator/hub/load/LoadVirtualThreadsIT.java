@@ -0,0 +1,38 @@
+package org.cryptomator.hub.load;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Map;
+
+/**
+ * Runs the {@link LoadIT} scenarios with REST resources on virtual threads. Reports are suffixed with {@code -virtual-threads}, so they can be compared
+ * to the ones using the worker pool, e.g. at 2000 concurrent clients:
+ * <pre>
+ * ./mvnw verify -Pload-test -Dhub.load-test.concurrency=2000
+ * </pre>
+ * The {@code load-test} profile traces pinned carrier threads, which are printed along with a stack trace.
+ */
+@QuarkusTest
+@TestProfile(LoadVirtualThreadsIT.VirtualThreadsTestProfile.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "hub.load-test", matches = "true")
+@DisplayName("Load Test on Virtual Threads")
+public class LoadVirtualThreadsIT extends LoadIT {
+
+	public static class VirtualThreadsTestProfile implements QuarkusTestProfile {
+		@Override
+		public Map<String, String> getConfigOverrides() {
+			return Map.of("quarkus.virtual-threads.enabled", "true");
+		}
+	}
+
+	@Override
+	protected String scenario(String name) {
+		return name + "-virtual-threads";
+	}
+}
@@ -0,0 +1,31 @@
+package org.cryptomator.hub.metrics;
+
+import org.cryptomator.hub.entities.Settings;
+import org.cryptomator.hub.entities.events.AuditEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class NamedQueryMetricsTest {
+
+	@Test
+	@DisplayName("collects named queries of all given entities")
+	public void testNamedQueries() {
+		var queries = NamedQueryMetrics.namedQueries(List.of(AuditEvent.class, Settings.class));
+
+		Assertions.assertTrue(queries.containsKey("AuditEvent.listAllInPeriodBeforeId"));
+		Assertions.assertTrue(queries.containsKey("AuditEvent.lastVaultKeyRetrieve"));
+		Assertions.assertTrue(queries.get("AuditEvent.listAllAfterId").contains("ae.id > :paginationId"));
+	}
+
+	@Test
+	@DisplayName("entities without named queries are ignored")
+	public void testNoNamedQueries() {
+		var queries = NamedQueryMetrics.namedQueries(List.of(Settings.class));
+
+		Assertions.assertTrue(queries.isEmpty());
+	}
+
+}
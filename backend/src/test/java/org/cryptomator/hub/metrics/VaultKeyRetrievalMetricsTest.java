@@ -0,0 +1,37 @@
+package org.cryptomator.hub.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cryptomator.hub.entities.events.VaultKeyRetrievedEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class VaultKeyRetrievalMetricsTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final VaultKeyRetrievalMetrics metrics = new VaultKeyRetrievalMetrics();
+
+	@BeforeEach
+	public void setup() {
+		metrics.meterRegistry = meterRegistry;
+	}
+
+	@Test
+	@DisplayName("retrievals are counted by result")
+	public void testCountByResult() {
+		metrics.onVaultKeyRetrieved(event(VaultKeyRetrievedEvent.Result.SUCCESS));
+		metrics.onVaultKeyRetrieved(event(VaultKeyRetrievedEvent.Result.SUCCESS));
+		metrics.onVaultKeyRetrieved(event(VaultKeyRetrievedEvent.Result.UNAUTHORIZED));
+
+		Assertions.assertEquals(2.0, meterRegistry.counter("hub.vault.key.retrievals", "result", "SUCCESS").count());
+		Assertions.assertEquals(1.0, meterRegistry.counter("hub.vault.key.retrievals", "result", "UNAUTHORIZED").count());
+	}
+
+	private static VaultKeyRetrievedEvent event(VaultKeyRetrievedEvent.Result result) {
+		var event = new VaultKeyRetrievedEvent();
+		event.setResult(result);
+		return event;
+	}
+
+}
@@ -0,0 +1,22 @@
+package org.cryptomator.hub.tracing;
+
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * Replaces the OTLP exporter during tests, so that spans can be inspected.
+ * <p>
+ * Only used while the SDK is enabled, i.e. in tests running with the {@link TracingIT.TracingTestProfile}.
+ */
+@ApplicationScoped
+public class InMemorySpanExporterProducer {
+
+	@Produces
+	@Singleton
+	InMemorySpanExporter inMemorySpanExporter() {
+		return InMemorySpanExporter.create();
+	}
+
+}
@@ -0,0 +1,20 @@
+package org.cryptomator.hub.tracing;
+
+import org.cryptomator.hub.entities.AccessToken;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+public class TracedInterceptorTest {
+
+	@Test
+	@DisplayName("span names of nested repositories contain the entity name")
+	public void testSpanName() throws NoSuchMethodException {
+		var method = AccessToken.Repository.class.getMethod("unlock", UUID.class, String.class);
+
+		Assertions.assertEquals("AccessToken.Repository.unlock", TracedInterceptor.spanName(method));
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.cryptomator.hub.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.security.oidc.Claim;
+import io.quarkus.test.security.oidc.OidcSecurity;
+import jakarta.inject.Inject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static io.restassured.RestAssured.when;
+
+@QuarkusTest
+@DisplayName("Tracing")
+@TestProfile(TracingIT.TracingTestProfile.class)
+public class TracingIT {
+
+	public static class TracingTestProfile implements QuarkusTestProfile {
+		@Override
+		public Map<String, String> getConfigOverrides() {
+			return Map.of("quarkus.otel.sdk.disabled", "false");
+		}
+	}
+
+	@Inject
+	InMemorySpanExporter spanExporter;
+
+	@BeforeEach
+	public void beforeEach() {
+		spanExporter.reset();
+	}
+
+	@Test
+	@TestSecurity(user = "User Name 1", roles = {"user"})
+	@OidcSecurity(claims = {
+			@Claim(key = "sub", value = "user1")
+	})
+	@DisplayName("GET /vaults/7E57C0DE-0000-4000-8000-000100001111/access-token creates spans for filters, repositories and JDBC statements within one trace")
+	public void testUnlockSpans() throws InterruptedException {
+		when().get("/vaults/{vaultId}/access-token", "7E57C0DE-0000-4000-8000-000100001111")
+				.then().statusCode(200);
+
+		var spans = awaitSpans(span -> span.getName().equals("EventLogger.log"));
+		var serverSpan = spans.stream().filter(s -> s.getKind() == SpanKind.SERVER).findAny().orElseThrow();
+		var traceSpans = spans.stream().filter(s -> s.getTraceId().equals(serverSpan.getTraceId())).toList();
+		var names = traceSpans.stream().map(SpanData::getName).toList();
+
+		MatcherAssert.assertThat(names, Matchers.hasItems(
+				"VaultRoleFilter.filter",
+				"ActiveLicenseFilter.filter",
+				"EffectiveVaultAccess.Repository.countSeatOccupyingUsersWithAccessToken",
+				"AccessToken.Repository.unlockInfo",
+				"EventLogger.log"));
+		Assertions.assertTrue(traceSpans.stream().anyMatch(s -> "postgresql".equals(s.getAttributes().get(AttributeKey.stringKey("db.system")))), "missing JDBC span");
+	}
+
+	private List<SpanData> awaitSpans(Predicate<SpanData> condition) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			var spans = spanExporter.getFinishedSpanItems();
+			if (spans.stream().anyMatch(condition) && spans.stream().anyMatch(s -> s.getKind() == SpanKind.SERVER)) {
+				return spans;
+			}
+			Thread.sleep(50);
+		}
+		return Assertions.fail("expected spans not exported in time");
+	}
+
+}
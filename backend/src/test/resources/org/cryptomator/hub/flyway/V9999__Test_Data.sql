@@ -154,3 +154,8 @@ VALUES
 INSERT INTO "audit_event_vault_update" ("id", "updated_by", "vault_id", "vault_name", "vault_description", "vault_archived")
 VALUES
     (3000, 'user1', '7E57C0DE-0000-4000-8000-00010000AAAA', 'Vault Archived', 'This is a archived vault.', TRUE);
+
+INSERT INTO "audit_event_rollup" ("bucket", "type", "vault_id", "user_id", "device_id", "result", "count")
+SELECT date_trunc('hour', "timestamp", 'UTC'), "type", "vault_id", "user_id", "device_id", "result", count(*)
+FROM "audit_event_dimension"
+GROUP BY 1, 2, 3, 4, 5, 6;
@@ -31,7 +31,9 @@ class ConfigWrapper {
 
   private static async loadConfig(): Promise<ConfigDto> {
     const response = await axios.get<ConfigDto>('/config');
-    return response.data;
+    // the body might come from the browser cache, so prefer the server time from the header:
+    const serverTime = response.headers['x-server-time'] ?? response.data.serverTime;
+    return { ...response.data, serverTime };
   }
 
   static async build(): Promise<ConfigWrapper> {
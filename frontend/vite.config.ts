@@ -1,8 +1,44 @@
 import vueI18nPlugin from '@intlify/unplugin-vue-i18n/vite';
 import tailwindcss from '@tailwindcss/vite';
 import vue from '@vitejs/plugin-vue';
+import fs from 'fs';
 import path from 'path';
-import { defineConfig } from 'vite';
+import { defineConfig, Plugin } from 'vite';
+import zlib from 'zlib';
+
+// writes .gz and .br variants of compressible assets, served by the backend's PrecompressedAssetFilter
+function precompressAssets(): Plugin {
+  let outDir: string;
+  return {
+    name: 'precompress-assets',
+    apply: 'build',
+    configResolved(config) {
+      outDir = path.resolve(config.root, config.build.outDir);
+    },
+    writeBundle(_options, bundle) {
+      for (const fileName of Object.keys(bundle)) {
+        if (!fileName.startsWith('assets/') || !/\.(js|css|svg|json|map|txt)$/.test(fileName)) {
+          continue;
+        }
+        const file = path.join(outDir, fileName);
+        const content = fs.readFileSync(file);
+        const gzipped = zlib.gzipSync(content, { level: zlib.constants.Z_BEST_COMPRESSION });
+        const brotlied = zlib.brotliCompressSync(content, {
+          params: {
+            [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+            [zlib.constants.BROTLI_PARAM_SIZE_HINT]: content.length
+          }
+        });
+        if (gzipped.length < content.length) {
+          fs.writeFileSync(`${file}.gz`, gzipped);
+        }
+        if (brotlied.length < content.length) {
+          fs.writeFileSync(`${file}.br`, brotlied);
+        }
+      }
+    }
+  };
+}
 
 // https://vitejs.dev/config/
 export default defineConfig({
@@ -13,6 +49,7 @@ export default defineConfig({
       include: path.resolve(__dirname, './src/i18n/*.json')
     }),
     tailwindcss(),
+    precompressAssets(),
   ],
   build: {
     minify: 'esbuild',